@@ -0,0 +1,130 @@
+package io.futuramer.phonebook;
+
+import java.util.List;
+
+/**
+ * Class representing the result of one batch operation over the phonebook - a single undoable unit.
+ * Contains either the list of applied changes (to be able to undo them) or the list of per-record failures,
+ * batch is applied atomically: if any record fails validation nothing is changed
+ */
+class BatchEdit {
+
+    /**
+     * Class representing one changed Record: values before and after the batch operation
+     */
+    static class Change {
+
+        private final Record record;
+        private final Record oldValues;
+        private final Record newValues;
+
+        Change(Record record, Record oldValues, Record newValues) {
+            this.record = record;
+            this.oldValues = oldValues;
+            this.newValues = newValues;
+        }
+
+        /**
+         * Getter of the changed record of the phonebook
+         * @return record
+         */
+        Record getRecord() {
+            return record;
+        }
+
+        /**
+         * Getter of the values of the record before the change
+         * @return detached copy of the record
+         */
+        Record getOldValues() {
+            return oldValues;
+        }
+
+        /**
+         * Getter of the values of the record after the change
+         * @return detached copy of the record
+         */
+        Record getNewValues() {
+            return newValues;
+        }
+    }
+
+    /**
+     * Class representing one Record which failed validation after the transformation
+     */
+    static class Failure {
+
+        private final int index;
+        private final Record newValues;
+        private final String message;
+
+        Failure(int index, Record newValues, String message) {
+            this.index = index;
+            this.newValues = newValues;
+            this.message = message;
+        }
+
+        /**
+         * Getter of the index of the record in the phonebook
+         * @return index
+         */
+        int getIndex() {
+            return index;
+        }
+
+        /**
+         * Getter of the rejected values of the record
+         * @return detached copy of the record
+         */
+        Record getNewValues() {
+            return newValues;
+        }
+
+        /**
+         * Getter of the validation message
+         * @return message
+         */
+        String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Changes of the records, in order of the phonebook. Empty if the batch was rejected
+     */
+    private final List<Change> changes;
+
+    /**
+     * Records which failed validation, in order of the phonebook. Empty if the batch was applied
+     */
+    private final List<Failure> failures;
+
+    BatchEdit(List<Change> changes, List<Failure> failures) {
+        this.changes = changes;
+        this.failures = failures;
+    }
+
+    /**
+     * Getter of the changes of the records
+     * @return list of changes
+     */
+    List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Getter of the records which failed validation
+     * @return list of failures
+     */
+    List<Failure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Checking if the batch was applied to the phonebook
+     * @return true if no record failed validation, otherwise false
+     */
+    boolean isApplied() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,91 @@
+package io.futuramer.phonebook;
+
+import java.util.HashMap;
+
+/**
+ * Count of distinct values supporting both adding and removing of values.
+ * Values are counted exactly (value to number of its occurrences) while there are not more than EXACT_LIMIT distinct values,
+ * above the limit the counter switches to HyperLogLog sketch with fixed memory. The sketch can not forget values,
+ * so after a removal in approximate mode the estimate becomes stale: it may include removed values until the counter is rebuilt
+ */
+class DistinctCounter {
+
+    /**
+     * Maximal number of distinct values counted exactly
+     */
+    static final int EXACT_LIMIT = 1_000_000;
+
+    /**
+     * Accuracy of the count
+     */
+    enum Accuracy {
+        EXACT,
+        ESTIMATE,
+        STALE_ESTIMATE
+    }
+
+    /**
+     * Number of occurrences of each value, null in approximate mode
+     */
+    private HashMap<String, Integer> occurrences = new HashMap<>();
+
+    /**
+     * Sketch of the values, null in exact mode
+     */
+    private HyperLogLog sketch;
+
+    /**
+     * Flag of the removal of a value in approximate mode
+     */
+    private boolean isStale;
+
+    /**
+     * Counting the value. Counter switches to approximate mode as soon as the number of distinct values exceeds EXACT_LIMIT
+     * @param value value
+     */
+    void add(String value) {
+        if (occurrences == null) {
+            sketch.add(value);
+            return;
+        }
+        occurrences.merge(value, 1, Integer::sum);
+        if (occurrences.size() > EXACT_LIMIT) {
+            sketch = new HyperLogLog();
+            for (String distinctValue : occurrences.keySet()) {
+                sketch.add(distinctValue);
+            }
+            occurrences = null;
+        }
+    }
+
+    /**
+     * Discounting the value. In approximate mode the value can not be discounted, the estimate is marked as stale instead
+     * @param value value
+     */
+    void remove(String value) {
+        if (occurrences == null) {
+            isStale = true;
+            return;
+        }
+        occurrences.computeIfPresent(value, (distinctValue, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Getter of the number of distinct values
+     * @return exact number, or estimate in approximate mode (see getAccuracy)
+     */
+    long count() {
+        return occurrences != null ? occurrences.size() : sketch.estimate();
+    }
+
+    /**
+     * Getter of the accuracy of the count
+     * @return EXACT, ESTIMATE, or STALE_ESTIMATE if values were removed in approximate mode
+     */
+    Accuracy getAccuracy() {
+        if (occurrences != null) {
+            return Accuracy.EXACT;
+        }
+        return isStale ? Accuracy.STALE_ESTIMATE : Accuracy.ESTIMATE;
+    }
+}
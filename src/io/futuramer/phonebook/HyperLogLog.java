@@ -0,0 +1,98 @@
+package io.futuramer.phonebook;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog sketch - approximate count of distinct values using fixed memory (2^14 one-byte registers, standard error about 0.8%).
+ * Values can only be added, removing is not supported by the algorithm. Sketches can be merged, for example sketches of separate phonebooks
+ */
+class HyperLogLog {
+
+    /**
+     * Number of bits of the hash used to choose the register
+     */
+    private static final int PRECISION = 14;
+
+    /**
+     * Number of registers
+     */
+    private static final int REGISTERS_COUNT = 1 << PRECISION;
+
+    /**
+     * Bias correction constant for the number of registers
+     */
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS_COUNT);
+
+    /**
+     * Registers, each one keeps the maximal position of the first 1-bit among hashes mapped to it
+     */
+    private final byte[] registers = new byte[REGISTERS_COUNT];
+
+    /**
+     * Adding the value to the sketch
+     * @param value value to count
+     */
+    void add(String value) {
+        long hash = hash(value);
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (registers[register] < rank) {
+            registers[register] = rank;
+        }
+    }
+
+    /**
+     * Merging other sketch into this one, the result estimates distinct values of both
+     * @param other other sketch
+     */
+    void merge(HyperLogLog other) {
+        for (int index = 0; index < REGISTERS_COUNT; index++) {
+            if (registers[index] < other.registers[index]) {
+                registers[index] = other.registers[index];
+            }
+        }
+    }
+
+    /**
+     * Estimating the number of distinct values added to the sketch
+     * @return approximate number of distinct values
+     */
+    long estimate() {
+        double sum = 0;
+        int emptyRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                emptyRegisters++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS_COUNT * REGISTERS_COUNT / sum;
+
+        /*
+         * small cardinalities are estimated more precisely with linear counting of empty registers
+         */
+        if (estimate <= 2.5 * REGISTERS_COUNT && emptyRegisters > 0) {
+            estimate = REGISTERS_COUNT * Math.log((double) REGISTERS_COUNT / emptyRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64-bit hash of the value: FNV-1a over UTF-8 bytes followed by a finalizer mixing all bits (from MurmurHash3)
+     * @param value value to hash
+     * @return hash
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,96 @@
+package io.futuramer.phonebook;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard of the phonebook kept in this JVM: one XML file and its RecordList
+ */
+class LocalShard implements Shard {
+
+    /**
+     * XML file of the shard
+     */
+    private final File file;
+
+    /**
+     * Records of the shard, empty until the shard is loaded
+     */
+    private final RecordList recordList = new RecordList();
+
+    /**
+     * Creating the shard, records are not loaded yet
+     * @param file XML file of the shard
+     */
+    LocalShard(File file) {
+        this.file = file;
+        recordList.setRecords(new ArrayList<>());
+    }
+
+    /**
+     * Getter of XML file of the shard
+     * @return file
+     */
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void load() throws IOException {
+        try {
+            recordList.setRecords(PhonebookFile.load(file));
+        }
+        catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Shard " + file.getName() + " is damaged", e);
+        }
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        try {
+            PhonebookFile.save(file, recordList.getRecords());
+        }
+        catch (ParserConfigurationException | TransformerException e) {
+            throw new IOException("Shard " + file.getName() + " can not be saved", e);
+        }
+    }
+
+    @Override
+    public synchronized void addRecord(Record record) {
+        recordList.addRecord(record);
+    }
+
+    @Override
+    public synchronized List<Record> searchByName(String query, int limit) {
+        return recordList.searchByName(query, limit);
+    }
+
+    @Override
+    public synchronized List<Record> findByPhone(String phone) {
+        List<Record> found = new ArrayList<>();
+        for (Record record : recordList.getRecords()) {
+            if (record.getPhone().equals(phone)) {
+                found.add(record);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized long getRecordsCount() {
+        return recordList.getStatistics().getRecordsCount();
+    }
+
+    @Override
+    public synchronized Map<String, Long> getCountsByState() {
+        return recordList.getStatistics().getCountsByState();
+    }
+}
@@ -6,15 +6,35 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.File;
+
 public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) throws Exception{
-        Parent root = FXMLLoader.load(getClass().getResource("Phonebook.fxml")); // reading fxml template from disk, parsing and loading the FX environment of the project
+        StartupMetrics.register(); // exporting startup metrics via JMX
+        File lastFile = PhonebookFile.getLastFile(); // the most recently used phonebook, null on first run
+
+        /*
+         * starting to load the most recently used phonebook in background before the window is created, so parsing overlaps with FX startup
+         */
+        PhonebookController controller = new PhonebookController();
+        if (lastFile != null) {
+            controller.showPreloadedPhonebook(lastFile, PhonebookFile.loadAsync(lastFile));
+        }
+
+        /*
+         * reading fxml template from disk, parsing and loading the FX environment of the project.
+         * The controller is created above and passed to the loader directly, so the loader does not instantiate it reflectively
+         */
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("Phonebook.fxml"));
+        loader.setController(controller);
+        Parent root = loader.load();
         primaryStage.setTitle("Phonebook Editor by Futuramer"); // setting title of the application window
-        primaryStage.setScene(new Scene(root, 320, 350)); // setting size of the window
+        primaryStage.setScene(new Scene(root, 400, 350)); // setting size of the window
         primaryStage.setResizable(false); // it should not be resizable in order to avoid UI glitches
         primaryStage.show(); // showing the stage, making it visible for user
+        StartupMetrics.windowShown();
     }
 
     public static void main(String[] args) {
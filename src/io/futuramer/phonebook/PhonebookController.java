@@ -1,32 +1,25 @@
 package io.futuramer.phonebook;
 
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
 import javafx.stage.FileChooser;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
-import org.w3c.dom.Node;
-import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for FX workaround : Phonebook.fxml
+ * The instance is created by Main and passed to FXMLLoader directly, so the template does not declare fx:controller
  */
 public class PhonebookController {
 
@@ -46,6 +39,11 @@ public class PhonebookController {
      */
     private boolean isNewRecordAdded;
 
+    /**
+     * Flag of the phonebook being loaded in background after user pushed "Load" button, the preloaded phonebook must not replace it
+     */
+    private boolean isLoadInProgress;
+
     /*
      * all @FXML annotated values are injected by FXMLLoader upon the start of application.
      * No setters required, JavaFX workaround can handle it without setters.
@@ -68,7 +66,7 @@ public class PhonebookController {
     private TextField phoneTextField;
 
     @FXML
-    private Button loadButton; // always enabled
+    private Button loadButton; // enabled except while a phonebook is being loaded
 
     @FXML
     private Button serializeButton;
@@ -88,6 +86,26 @@ public class PhonebookController {
     @FXML
     private Button exitButton; // always enabled
 
+    @FXML
+    private Button batchButton;
+
+    @FXML
+    private Button undoButton;
+
+    @FXML
+    private TextField searchTextField;
+
+    @FXML
+    private Button searchButton;
+
+    @FXML
+    private Button statisticsButton;
+
+    /**
+     * Window with live statistics of the phonebook, created on first use
+     */
+    private StatisticsDashboard statisticsDashboard;
+
     /*
      * Static String values.
      * Normally kept in .properties file | CMS | DB
@@ -95,18 +113,23 @@ public class PhonebookController {
     private static final String VALIDATION_ERROR_HEADER = "Invalid value";
     private static final String SERIALIZATION_ERROR_HEADER = "Phonebook serialization failure";
     private static final String EXIT_HEADER = "Exit";
-    private static final String INVALID_NAME_MESSAGE = "Invalid Name. Names should start with an uppercase letter followed by at least two characters";
-    private static final String INVALID_STATE_MESSAGE = "Invalid State. States should consist of one or two words";
-    private static final String INVALID_PHONE_MESSAGE = "Invalid Phone number. Ex (212) 555 - 1234";
     private static final String EXIT_MESSAGE = "Are you sure you want to exit?";
     private static final String LOAD_PHONEBOOK_HEADER = "Open Phonebook";
     private static final String SERIALIZE_PHONEBOOK_HEADER = "Serialize Phonebook";
-    private static final String NAME_PATTERN = "^[A-Z][a-zA-Z]{2,}([\\s][A-Z][a-zA-Z]{2,})*$";
-    private static final String STATE_PATTERN = "^[A-Z][a-zA-Z]{2,}([\\s][A-Z][a-zA-Z]{2,})?$";
-    private static final String PHONE_PATTERN = "^[(][1-9][0-9]{2}[)][\\s][1-9][0-9]{2}[\\s][-][\\s][0-9]{4}$";
+    private static final String SEARCH_HEADER = "Find";
+    private static final String SEARCH_NOTHING_FOUND_MESSAGE = "No similar names found";
+    private static final String SEARCH_CHOOSE_MESSAGE = "Choose the record to show";
+    private static final int SEARCH_RESULTS_LIMIT = 10;
+    private static final String BATCH_HEADER = "Batch edit";
+    private static final String BATCH_MESSAGE = "Replace text in the chosen field of all matching records";
+    private static final String BATCH_REJECTED_MESSAGE = " record(s) would become invalid. Nothing was changed";
+    private static final String BATCH_APPLIED_MESSAGE = " record(s) changed";
+    private static final String UNDO_MESSAGE = " record(s) restored";
+    private static final int BATCH_FAILURES_TO_SHOW = 10;
+    private static final String[] BATCH_FIELDS = {"Name", "State", "Phone"};
 
     /**
-     * Event listener for loadButton action, this method loads XML phonebook from disk
+     * Event listener for loadButton action, this method loads XML phonebook from disk in background and shows it when it is loaded
      * @param event An Event representing some type of action, such as when a Button has been fired. Not used in method, just for the correct method signature
      */
     @FXML
@@ -123,59 +146,34 @@ public class PhonebookController {
          */
         if (file != null) {
             fileNameLabel.setText("File: " + file.getName()); // setting label on UI
-            try {
-                /*
-                 * getting new document builder factory to handle XML file, instantiating new document builder from its factory, parsing the file
-                 * and creating its structure in Document object. It will throw exception in case of IO issues | unknown structure of document
-                 */
-                DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-                Document doc = dBuilder.parse(file);
-                doc.getDocumentElement().normalize(); // it is recommended to normalize the contents of the parsed XML structure
-
-                /*
-                 * instantiating new collection of type Record in order to fill it with parsed data of XML,
-                 * getting collection of XML "record" entries from parsed structure
-                 */
-                ArrayList<Record> loadedRecordsList = new ArrayList<>();
-                NodeList nList = doc.getElementsByTagName("record");
-
-                /*
-                 * handling each record from collection of XML entries, getting a single XML record element,
-                 * checking if the element is a correct "record" node, creating new instance of Record class,
-                 * setting its fields accordingly and adding new Record item to the collection of Records
-                 */
-                for (int index = 0; index < nList.getLength(); index++) {
-
-                    Node nNode = nList.item(index);
-
-                    if (nNode.getNodeType() == Node.ELEMENT_NODE) {
-                        Element eElement = (Element) nNode;
-
-                        Record record = new Record();
-                        record.setName(eElement.getElementsByTagName("name").item(0).getTextContent());
-                        record.setState(eElement.getElementsByTagName("state").item(0).getTextContent());
-                        record.setPhone(eElement.getElementsByTagName("phone").item(0).getTextContent());
-
-                        loadedRecordsList.add(record);
-                    }
+            /*
+             * disabling all controls (except "Exit") while the file is parsed and the search index and statistics are built in background,
+             * UI thread stays responsive even for huge phonebooks
+             */
+            isLoadInProgress = true;
+            setControlsDisabled(true);
+            PhonebookFile.loadAsync(file).whenComplete((loaded, error) -> Platform.runLater(() -> {
+                isLoadInProgress = false;
+                loadButton.setDisable(false);
+                if (error == null) {
+                    /*
+                     * swapping the loaded Phonebook in, remembering the file for the next start, logging
+                     */
+                    showRecordList(loaded);
+                    PhonebookFile.setLastFile(file);
+                    System.out.println("File " + file.getName() + " loaded!");
+                    return;
                 }
-
                 /*
-                 * saving the collection to Phonebook holder and logging
+                 * exception can happen due to IO issues, incorrect structure of XML. According to demand, first run of the application should be done with an empty xml file.
                  */
-                recordList.setRecords(loadedRecordsList);
-                System.out.println("File " + file.getName() + " loaded!");
-            }
-            /*
-             * exception can happen due to IO issues, incorrect structure of XML. According to demand, first run of the application should be done with an empty xml file.
-             */
-            catch (ParserConfigurationException | SAXException | IOException e) {
                 System.out.println("File " + file.getName() + " is damaged. Creating new Phonebook!");
                 /*
                  * according to System Design, we creating new empty phonebook in case if the file was unable to be read
                  */
-                recordList.setRecords(new ArrayList<>());
+                RecordList emptyRecordList = new RecordList();
+                emptyRecordList.setRecords(new ArrayList<>());
+                showRecordList(emptyRecordList);
 
                 /*
                  * in case of file load error informing user with popup window.
@@ -186,24 +184,56 @@ public class PhonebookController {
                 alert.setHeaderText("File " + file.getName() + " is damaged. Creating new Phonebook");
 
                 alert.showAndWait();
+            }));
+        }
+    }
+
+    /**
+     * Method to show another phonebook (loaded or new empty one): it replaces the current one, the statistics window is switched to it too
+     * and the view is reset to the first record
+     * @param newRecordList phonebook with already built search index and statistics
+     */
+    private void showRecordList(RecordList newRecordList) {
+        recordList = newRecordList;
+        if (statisticsDashboard != null) {
+            statisticsDashboard.setRecordList(newRecordList);
+        }
+        showLoadedPhonebook();
+    }
+
+    /**
+     * Method to disable or enable all controls except "Exit", used while a phonebook is being loaded.
+     * After loading the controls are enabled according to the loaded phonebook, see showLoadedPhonebook
+     * @param isDisabled true to disable the controls
+     */
+    private void setControlsDisabled(boolean isDisabled) {
+        for (Control control : new Control[]{loadButton, serializeButton, deleteButton, addButton, previousButton, nextButton,
+                batchButton, undoButton, searchTextField, searchButton, statisticsButton, nameTextField, stateTextField, phoneTextField}) {
+            control.setDisable(isDisabled);
+        }
+    }
+
+    /**
+     * Method to show the phonebook preloaded in background during startup. Preloading is started before the window is shown,
+     * the phonebook is shown as soon as it is loaded unless user has already loaded another one with "Load" button.
+     * The phonebook comes with its search index and statistics already built by the loading thread, UI thread only swaps it in.
+     * In case of failure the phonebook is not shown, user loads it manually as usual
+     * @param file preloaded XML file
+     * @param preloadedRecordList future completed with loaded phonebook
+     */
+    void showPreloadedPhonebook(File file, CompletableFuture<RecordList> preloadedRecordList) {
+        preloadedRecordList.whenComplete((preloaded, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.out.println("File " + file.getName() + " could not be preloaded: " + error.getCause());
+                return;
             }
-            /*
-             * whenever the loading of the XML was successful or not - performing some actions:
-             * - resetting the view index to 0 (for example - if we have opened new phonebook - we need to start from the first record)
-             * - resetting the flag indicating that user works with new record
-             * - enabling "+" button, now user is able to add records from UI
-             * - enabling "Serialize" button, so user is able to save records to file
-             * - performing the handling of navigation workaround and the handling of evaluation of content to show
-             */
-            finally {
-                currentRecordViewIndex = 0;
-                isNewRecordAdded = false;
-                addButton.setDisable(false);
-                serializeButton.setDisable(false);
-                handleNavigation();
-                showCurrentRecord();
+            if (recordList.getRecords() != null || isLoadInProgress) {
+                return; // user has already loaded a phonebook or is loading one
             }
-        }
+            fileNameLabel.setText("File: " + file.getName());
+            showRecordList(preloaded);
+            System.out.println("File " + file.getName() + " preloaded!");
+        }));
     }
 
     /**
@@ -247,53 +277,10 @@ public class PhonebookController {
                 fileNameLabel.setText("File: " + file.getName());
 
                 /*
-                 * getting the instance of document builder factory to handle XML structure, getting new document builder from its factory
-                 */
-                DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-
-                /*
-                 * creating new structure of the XML document, creating its root element and adding it to XML structure
-                 */
-                Document doc = docBuilder.newDocument();
-                Element rootElement = doc.createElement("records");
-                doc.appendChild(rootElement);
-
-                /*
-                 * handling each record in the collection of records, creating new sub-nodes "record", creating its elements, adding accordingly
+                 * saving (serializing) the collection of Records, remembering the file for the next start
                  */
-                for (Record record : recordList.getRecords()) {
-
-                    Element recordElement = doc.createElement("record");
-                    rootElement.appendChild(recordElement);
-
-                    // name element
-                    Element name = doc.createElement("name");
-                    name.appendChild(doc.createTextNode(record.getName()));
-                    recordElement.appendChild(name);
-
-                    // state element
-                    Element state = doc.createElement("state");
-                    state.appendChild(doc.createTextNode(record.getState()));
-                    recordElement.appendChild(state);
-
-                    // phone element
-                    Element phone = doc.createElement("phone");
-                    phone.appendChild(doc.createTextNode(record.getPhone()));
-                    recordElement.appendChild(phone);
-                }
-
-                /*
-                 * writing the content into xml file:
-                 * getting an instance of the factory that will produce the XML writer, creating new writer of XML using the factory
-                 * creating DOM structure of XML, preparing DOM structure to be written to file, saving (serializing) XML on disk.
-                 */
-                TransformerFactory transformerFactory = TransformerFactory.newInstance();
-                Transformer transformer = transformerFactory.newTransformer();
-                DOMSource source = new DOMSource(doc);
-                StreamResult result = new StreamResult(file);
-
-                transformer.transform(source, result);
+                PhonebookFile.save(file, recordList.getRecords());
+                PhonebookFile.setLastFile(file);
 
                 System.out.println("File " + file.getName() + " saved!");
             }
@@ -320,7 +307,7 @@ public class PhonebookController {
          * in case if it is not a new record - deleting the an existing record from a collection of records according to its index
          */
         else {
-            recordList.getRecords().remove(currentRecordViewIndex);
+            recordList.removeRecord(currentRecordViewIndex);
         }
         /*
          * we need to decrease the view index only in case if it is not a first entry.
@@ -420,6 +407,177 @@ public class PhonebookController {
         // no action required if validation failed
     }
 
+    /**
+     * Event listener for searchButton "Find" action, this method performs fuzzy search of records by name and shows the chosen one.
+     * The validation of possibly existing new record is performed the same way as for navigation.
+     * @param event An Event representing some type of action, such as when a Button has been fired. Not used in method, just for the correct method signature
+     */
+    @FXML
+    private void searchButtonAction(ActionEvent event) {
+        /*
+         * validating current record before leaving it, new record is saved
+         */
+        if (!isCurrentRecordValidatedAndSaved()) {
+            return; // no action required if validation failed
+        }
+
+        /*
+         * searching names similar to the query, tolerating misspelling. Informing user with popup window if nothing found
+         */
+        List<Record> foundRecords = recordList.searchByName(searchTextField.getText(), SEARCH_RESULTS_LIMIT);
+        if (foundRecords.isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle(SEARCH_HEADER);
+            alert.setHeaderText(SEARCH_NOTHING_FOUND_MESSAGE);
+
+            alert.showAndWait();
+            handleNavigation();
+            showCurrentRecord();
+            return;
+        }
+
+        /*
+         * showing found records ordered from the best match, the best one is preselected. Waiting till user chooses one of them
+         */
+        List<String> foundRecordsDescriptions = new ArrayList<>();
+        for (Record record : foundRecords) {
+            foundRecordsDescriptions.add(record.getName() + ", " + record.getState() + ", " + record.getPhone());
+        }
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(foundRecordsDescriptions.get(0), foundRecordsDescriptions);
+        dialog.setTitle(SEARCH_HEADER);
+        dialog.setHeaderText(SEARCH_CHOOSE_MESSAGE);
+
+        /*
+         * navigating to the chosen record. The view index is the position of the record in the phonebook
+         */
+        Optional<String> result = dialog.showAndWait();
+        if (result.isPresent()) {
+            Record chosenRecord = foundRecords.get(foundRecordsDescriptions.indexOf(result.get()));
+            currentRecordViewIndex = recordList.getRecords().indexOf(chosenRecord);
+        }
+        handleNavigation();
+        showCurrentRecord();
+    }
+
+    /**
+     * Event listener for batchButton "Batch" action, this method asks user for batch edit parameters
+     * and replaces the text in the chosen field of all records containing it. Batch is validated and applied atomically.
+     * @param event An Event representing some type of action, such as when a Button has been fired. Not used in method, just for the correct method signature
+     */
+    @FXML
+    private void batchButtonAction(ActionEvent event) {
+        /*
+         * validating current record before the batch, it might be changed by the batch too. New record is saved
+         */
+        if (!isCurrentRecordValidatedAndSaved()) {
+            return; // no action required if validation failed
+        }
+
+        /*
+         * creating dialog with the field chooser and "find" and "replace with" text fields, waiting till user confirms or cancels
+         */
+        ChoiceBox<String> fieldChoiceBox = new ChoiceBox<>(FXCollections.observableArrayList(BATCH_FIELDS));
+        fieldChoiceBox.setValue(BATCH_FIELDS[1]);
+        TextField findTextField = new TextField();
+        TextField replaceTextField = new TextField();
+        GridPane gridPane = new GridPane();
+        gridPane.setHgap(5);
+        gridPane.setVgap(5);
+        gridPane.addRow(0, new Label("Field:"), fieldChoiceBox);
+        gridPane.addRow(1, new Label("Find:"), findTextField);
+        gridPane.addRow(2, new Label("Replace with:"), replaceTextField);
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle(BATCH_HEADER);
+        dialog.setHeaderText(BATCH_MESSAGE);
+        dialog.getDialogPane().setContent(gridPane);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        Optional<ButtonType> result = dialog.showAndWait();
+        String find = findTextField.getText();
+        if (!result.isPresent() || result.get() != ButtonType.OK || find.isEmpty()) {
+            return; // no action required is user chose "Cancel", closed the dialog or did not set text to find
+        }
+
+        /*
+         * building predicate and transformation for the chosen field and applying the batch
+         */
+        String replacement = replaceTextField.getText();
+        int field = fieldChoiceBox.getItems().indexOf(fieldChoiceBox.getValue());
+        BatchEdit batchEdit = recordList.applyBatch(
+                record -> getField(record, field).contains(find),
+                record -> {
+                    setField(record, field, getField(record, field).replace(find, replacement));
+                    return record;
+                });
+
+        /*
+         * informing user about the result. In case of failures showing the first of them with their record numbers (example "Record 12: Invalid State...")
+         */
+        Alert alert;
+        if (batchEdit.isApplied()) {
+            alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setHeaderText(batchEdit.getChanges().size() + BATCH_APPLIED_MESSAGE);
+            System.out.println("Batch edit: " + batchEdit.getChanges().size() + " record(s) changed");
+        }
+        else {
+            StringBuilder failuresText = new StringBuilder();
+            for (BatchEdit.Failure failure : batchEdit.getFailures().subList(0, Math.min(BATCH_FAILURES_TO_SHOW, batchEdit.getFailures().size()))) {
+                failuresText.append("Record ").append(failure.getIndex() + 1).append(": ").append(failure.getMessage()).append("\n");
+            }
+            alert = new Alert(Alert.AlertType.ERROR);
+            alert.setHeaderText(batchEdit.getFailures().size() + BATCH_REJECTED_MESSAGE);
+            alert.setContentText(failuresText.toString());
+        }
+        alert.setTitle(BATCH_HEADER);
+        alert.showAndWait();
+
+        undoButton.setDisable(!recordList.canUndoBatch());
+        handleNavigation();
+        showCurrentRecord();
+    }
+
+    /**
+     * Event listener for undoButton "Undo" action, this method reverts the last applied batch edit.
+     * The current record is validated and saved first, the same way as before the batch
+     * @param event An Event representing some type of action, such as when a Button has been fired. Not used in method, just for the correct method signature
+     */
+    @FXML
+    private void undoButtonAction(ActionEvent event) {
+        /*
+         * validating and saving current record (new or edited) first, undo keeps edits made after the batch, so they are not lost
+         */
+        if (!isCurrentRecordValidatedAndSaved()) {
+            return; // no action required if validation failed
+        }
+
+        BatchEdit batchEdit = recordList.undoLastBatch();
+        if (batchEdit != null) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle(BATCH_HEADER);
+            alert.setHeaderText(batchEdit.getChanges().size() + UNDO_MESSAGE);
+
+            alert.showAndWait();
+        }
+
+        undoButton.setDisable(!recordList.canUndoBatch());
+        handleNavigation();
+        showCurrentRecord();
+    }
+
+    /**
+     * Event listener for statisticsButton "Stats" action, this method shows the window with live statistics of the phonebook.
+     * Statistics of the current record are updated after its validation, the same way as the phonebook itself
+     * @param event An Event representing some type of action, such as when a Button has been fired. Not used in method, just for the correct method signature
+     */
+    @FXML
+    private void statisticsButtonAction(ActionEvent event) {
+        if (statisticsDashboard == null) {
+            statisticsDashboard = new StatisticsDashboard(recordList);
+        }
+        statisticsDashboard.show();
+    }
+
     /**
      * Event listener for exitButton action, this method shows popup message and exits application upon user confirmation.
      * @param event An Event representing some type of action, such as when a Button has been fired. Not used in method, just for the correct method signature
@@ -444,6 +602,33 @@ public class PhonebookController {
         // no action required is user chose "Cancel" or closed the dialog
     }
 
+    /**
+     * Method to reset the view after the phonebook was loaded (successfully or not), performing some actions:
+     * - resetting the view index to 0 (for example - if we have opened new phonebook - we need to start from the first record)
+     * - resetting the flag indicating that user works with new record
+     * - enabling "+" button, now user is able to add records from UI
+     * - enabling "Serialize" button, so user is able to save records to file
+     * - enabling search field and "Find" button, enabling "Batch" button and disabling "Undo" button, enabling "Stats" button
+     * - performing the handling of navigation workaround and the handling of evaluation of content to show
+     * - recording startup metric if it is the first record shown since the start of the application
+     */
+    private void showLoadedPhonebook() {
+        currentRecordViewIndex = 0;
+        isNewRecordAdded = false;
+        addButton.setDisable(false);
+        serializeButton.setDisable(false);
+        searchTextField.setDisable(false);
+        searchButton.setDisable(false);
+        batchButton.setDisable(false);
+        undoButton.setDisable(true); // history of batch operations is cleared on load
+        statisticsButton.setDisable(false);
+        handleNavigation();
+        showCurrentRecord();
+        if (!recordList.getRecords().isEmpty()) {
+            StartupMetrics.firstRecordShown();
+        }
+    }
+
     /**
      * Method to handle the handling of navigation. Each time user navigating between records - currentRecordViewIndex changes
      * and we need to refresh the state of "<<" and ">>" buttons and the content of recordNumbersLabel (example "1 of 3") on UI
@@ -542,6 +727,25 @@ public class PhonebookController {
         }
     }
 
+    /**
+     * Method to validate the current record before an action changing the phonebook or leaving the record.
+     * If new record was just added and it was successfully validated - saving it.
+     * Nothing to validate if the phonebook is empty and there is no new record
+     * @return true if the current record is valid and saved, otherwise false (user was already informed with an alert)
+     */
+    private boolean isCurrentRecordValidatedAndSaved() {
+        if (isNewRecordAdded) {
+            if (!isAllInputFieldsValidatedAndUpdated()) {
+                return false;
+            }
+            saveNewRecord();
+        }
+        else if (!recordList.getRecords().isEmpty() && !isAllInputFieldsValidatedAndUpdated()) {
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Method to validate
      *  - if all fields are valid according to the specification
@@ -557,39 +761,14 @@ public class PhonebookController {
         String phone = phoneTextField.getText();
 
         /*
-         * validating name and if it is not valid - showing an alert and waiting for users` reaction. Then returning false.
-         */
-        boolean isNameValid = isNameValid(name);
-        if (!isNameValid) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle(VALIDATION_ERROR_HEADER);
-            alert.setHeaderText(INVALID_NAME_MESSAGE);
-
-            alert.showAndWait();
-            return false;
-        }
-
-        /*
-         * validating state and if it is not valid - showing an alert and waiting for users` reaction. Then returning false.
+         * validating name, state and phone. If any of them is not valid - showing an alert with the message of the first invalid field
+         * and waiting for users` reaction. Then returning false.
          */
-        boolean isStateValid = isStateValid(state);
-        if (!isStateValid) {
+        String validationMessage = RecordValidator.validate(name, state, phone);
+        if (validationMessage != null) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle(VALIDATION_ERROR_HEADER);
-            alert.setHeaderText(INVALID_STATE_MESSAGE);
-
-            alert.showAndWait();
-            return false;
-        }
-
-        /*
-         * validating phone and if it is not valid - showing an alert and waiting for users` reaction. Then returning false.
-         */
-        boolean isPhoneValid = isPhoneValid(phone);
-        if (!isPhoneValid) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle(VALIDATION_ERROR_HEADER);
-            alert.setHeaderText(INVALID_PHONE_MESSAGE);
+            alert.setHeaderText(validationMessage);
 
             alert.showAndWait();
             return false;
@@ -601,42 +780,46 @@ public class PhonebookController {
          */
         if (!isNewRecordAdded) {
             Record currentRecord = recordList.getRecords().get(currentRecordViewIndex);
-            currentRecord.setName(name);
-            currentRecord.setState(state);
-            currentRecord.setPhone(phone);
+            recordList.updateRecord(currentRecord, name, state, phone);
         }
 
         return true; // and finally - validation Ok
     }
 
     /**
-     * Method to validate name
-     *  Name: must start with an uppercase letter followed by at least two letters (upper or lower). For simplicity, we disallow numbers and special characters.
-     * @param name String value of name from UI to validate
-     * @return true if validation passed, otherwise false
+     * Method to get the value of the record field chosen for the batch edit
+     * @param record record
+     * @param field index of the field in BATCH_FIELDS
+     * @return value of the field
      */
-    private boolean isNameValid(String name) {
-        return name.matches(NAME_PATTERN);
-    }
-
-    /**
-     * Method to validate state
-     *  State: must consist of one OR two words. Each word should start with an upper case letter followed by at least two letters (upper or lower).
-     * @param state String value of state from UI to validate
-     * @return true if validation passed, otherwise false
-     */
-    private boolean isStateValid(String state) {
-        return state.matches(STATE_PATTERN);
+    private static String getField(Record record, int field) {
+        switch (field) {
+            case 0:
+                return record.getName();
+            case 1:
+                return record.getState();
+            default:
+                return record.getPhone();
+        }
     }
 
     /**
-     * Method to validate phone
-     *  Phone: must be in the form (###) ### - #### Where # is a number between 0 and 9 except the first and fourth digits, they must be between 1 and 9. Notice the spaces after the ')' and around the '-'.
-     * @param phone String value of phone from UI to validate
-     * @return true if validation passed, otherwise false
+     * Method to set the value of the record field chosen for the batch edit
+     * @param record record
+     * @param field index of the field in BATCH_FIELDS
+     * @param value new value of the field
      */
-    private boolean isPhoneValid(String phone) {
-        return phone.matches(PHONE_PATTERN);
+    private static void setField(Record record, int field, String value) {
+        switch (field) {
+            case 0:
+                record.setName(value);
+                break;
+            case 1:
+                record.setState(value);
+                break;
+            default:
+                record.setPhone(value);
+        }
     }
 
     /**
@@ -649,7 +832,7 @@ public class PhonebookController {
         newRecord.setName(nameTextField.getText());
         newRecord.setState(stateTextField.getText());
         newRecord.setPhone(phoneTextField.getText());
-        recordList.getRecords().add(newRecord);
+        recordList.addRecord(newRecord);
 
         isNewRecordAdded = false;
     }
@@ -0,0 +1,186 @@
+package io.futuramer.phonebook;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.prefs.Preferences;
+
+/**
+ * Class reading and writing phonebook XML files, it does not depend on JavaFX and can be used from any thread.
+ * Parsers and serializers are shared per thread, see XmlFactories.
+ * Also remembers the most recently used phonebook file between the runs of the application
+ */
+final class PhonebookFile {
+
+    /**
+     * Key of the most recently used phonebook file path in user preferences
+     */
+    private static final String LAST_FILE_KEY = "lastFile";
+
+    private PhonebookFile() {
+    }
+
+    /**
+     * Method to load phonebook from XML file
+     * @param file XML file
+     * @return collection of loaded Records
+     * @throws ParserConfigurationException it should not happen
+     * @throws SAXException in case of unknown structure of document
+     * @throws IOException in case of IO issues
+     */
+    static ArrayList<Record> load(File file) throws ParserConfigurationException, SAXException, IOException {
+        /*
+         * getting the hardened document builder of the current thread, parsing the file
+         * and creating its structure in Document object. It will throw exception in case of IO issues | unknown structure of document | DOCTYPE in the document
+         */
+        DocumentBuilder dBuilder = XmlFactories.documentBuilder();
+        Document doc = dBuilder.parse(file);
+        doc.getDocumentElement().normalize(); // it is recommended to normalize the contents of the parsed XML structure
+
+        /*
+         * instantiating new collection of type Record in order to fill it with parsed data of XML,
+         * getting collection of XML "record" entries from parsed structure
+         */
+        ArrayList<Record> loadedRecordsList = new ArrayList<>();
+        NodeList nList = doc.getElementsByTagName("record");
+
+        /*
+         * handling each record from collection of XML entries, getting a single XML record element,
+         * checking if the element is a correct "record" node, creating new instance of Record class,
+         * setting its fields accordingly and adding new Record item to the collection of Records
+         */
+        for (int index = 0; index < nList.getLength(); index++) {
+
+            Node nNode = nList.item(index);
+
+            if (nNode.getNodeType() == Node.ELEMENT_NODE) {
+                Element eElement = (Element) nNode;
+
+                Record record = new Record();
+                record.setName(eElement.getElementsByTagName("name").item(0).getTextContent());
+                record.setState(eElement.getElementsByTagName("state").item(0).getTextContent());
+                record.setPhone(eElement.getElementsByTagName("phone").item(0).getTextContent());
+
+                loadedRecordsList.add(record);
+            }
+        }
+
+        return loadedRecordsList;
+    }
+
+    /**
+     * Method to load phonebook from XML file in background. Loading runs in a new daemon thread, so it does not prevent the application from exit.
+     * The search index and statistics of the phonebook are built in the same thread, so UI thread only has to show the result
+     * @param file XML file
+     * @return future completed with loaded phonebook, or completed exceptionally in case of IO issues | unknown structure of document
+     */
+    static CompletableFuture<RecordList> loadAsync(File file) {
+        CompletableFuture<RecordList> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                RecordList recordList = new RecordList();
+                recordList.setRecords(load(file));
+                future.complete(recordList);
+            }
+            catch (ParserConfigurationException | SAXException | IOException | RuntimeException e) {
+                future.completeExceptionally(new CompletionException(e));
+            }
+        }, "phonebook-loader");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Method to save (serialize) phonebook to XML file
+     * @param file XML file
+     * @param records collection of Records to save
+     * @throws ParserConfigurationException it should not happen
+     * @throws TransformerException in case of IO issues
+     */
+    static void save(File file, List<Record> records) throws ParserConfigurationException, TransformerException {
+        /*
+         * getting the document builder of the current thread to handle XML structure
+         */
+        DocumentBuilder docBuilder = XmlFactories.documentBuilder();
+
+        /*
+         * creating new structure of the XML document, creating its root element and adding it to XML structure
+         */
+        Document doc = docBuilder.newDocument();
+        Element rootElement = doc.createElement("records");
+        doc.appendChild(rootElement);
+
+        /*
+         * handling each record in the collection of records, creating new sub-nodes "record", creating its elements, adding accordingly
+         */
+        for (Record record : records) {
+
+            Element recordElement = doc.createElement("record");
+            rootElement.appendChild(recordElement);
+
+            // name element
+            Element name = doc.createElement("name");
+            name.appendChild(doc.createTextNode(record.getName()));
+            recordElement.appendChild(name);
+
+            // state element
+            Element state = doc.createElement("state");
+            state.appendChild(doc.createTextNode(record.getState()));
+            recordElement.appendChild(state);
+
+            // phone element
+            Element phone = doc.createElement("phone");
+            phone.appendChild(doc.createTextNode(record.getPhone()));
+            recordElement.appendChild(phone);
+        }
+
+        /*
+         * writing the content into xml file:
+         * getting the XML writer of the current thread,
+         * creating DOM structure of XML, preparing DOM structure to be written to file, saving (serializing) XML on disk.
+         */
+        Transformer transformer = XmlFactories.transformer();
+        DOMSource source = new DOMSource(doc);
+        StreamResult result = new StreamResult(file);
+
+        transformer.transform(source, result);
+    }
+
+    /**
+     * Getter of the most recently loaded or saved phonebook file
+     * @return file, or null if there is no such file (first run or the file was removed)
+     */
+    static File getLastFile() {
+        String path = Preferences.userNodeForPackage(PhonebookFile.class).get(LAST_FILE_KEY, null);
+        if (path == null) {
+            return null;
+        }
+        File file = new File(path);
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * Setter for the most recently loaded or saved phonebook file
+     * @param file XML file
+     */
+    static void setLastFile(File file) {
+        Preferences.userNodeForPackage(PhonebookFile.class).put(LAST_FILE_KEY, file.getAbsolutePath());
+    }
+}
@@ -68,4 +68,16 @@ class Record {
         this.phone = phone;
     }
 
+    /**
+     * Creating a copy of the record with the same field values
+     * @return new Record
+     */
+    Record copy() {
+        Record record = new Record();
+        record.setName(name);
+        record.setState(state);
+        record.setPhone(phone);
+        return record;
+    }
+
 }
@@ -1,6 +1,14 @@
 package io.futuramer.phonebook;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Class containing Phonebook - collection of Records
@@ -13,7 +21,33 @@ class RecordList {
     private ArrayList<Record> records;
 
     /**
-     * Getter of Phonebook - collection of Records
+     * Fuzzy search index over names of the Records. Kept in sync by the add, remove and update methods below
+     */
+    private final RecordSearchIndex searchIndex = new RecordSearchIndex();
+
+    /**
+     * Aggregates of the Records (counts per state, area code, name initial, distinct counts). Kept in sync the same way as the search index
+     */
+    private final RecordStatistics statistics = new RecordStatistics();
+
+    /**
+     * Listeners notified after each change of the phonebook, for example to refresh the statistics on UI
+     */
+    private final ArrayList<Runnable> changeListeners = new ArrayList<>();
+
+    /**
+     * Maximal number of batch operations which can be undone
+     */
+    static final int UNDO_LIMIT = 10;
+
+    /**
+     * Applied batch operations, the last one on top
+     */
+    private final ArrayDeque<BatchEdit> undoStack = new ArrayDeque<>();
+
+    /**
+     * Getter of Phonebook - collection of Records.
+     * The collection must not be modified directly, use addRecord, removeRecord and updateRecord to keep the search index and statistics in sync
      * @return ArrayList<Record> of Records
      */
     ArrayList<Record> getRecords() {
@@ -21,10 +55,229 @@ class RecordList {
     }
 
     /**
-     * Setter for Phonebook
+     * Setter for Phonebook, the search index and statistics are rebuilt and the history of batch operations is cleared
      * @param records collection of phone records
      */
     void setRecords(ArrayList<Record> records) {
         this.records = records;
+        searchIndex.rebuild(records);
+        statistics.rebuild(records);
+        undoStack.clear();
+        notifyChangeListeners();
+    }
+
+    /**
+     * Adding new Record to the end of the phonebook
+     * @param record record to add
+     */
+    void addRecord(Record record) {
+        records.add(record);
+        searchIndex.add(record);
+        statistics.add(record.getName(), record.getState(), record.getPhone());
+        notifyChangeListeners();
+    }
+
+    /**
+     * Removing the Record from the phonebook according to its index
+     * @param index index of the record
+     */
+    void removeRecord(int index) {
+        Record record = records.remove(index);
+        searchIndex.remove(record);
+        statistics.remove(record.getName(), record.getState(), record.getPhone());
+        notifyChangeListeners();
+    }
+
+    /**
+     * Updating fields of the existing Record
+     * @param record record to update
+     * @param name new name
+     * @param state new state
+     * @param phone new phone
+     */
+    void updateRecord(Record record, String name, String state, String phone) {
+        setRecordValues(record, name, state, phone);
+        notifyChangeListeners();
+    }
+
+    /**
+     * Setting fields of the Record and synchronizing the search index and statistics, listeners are not notified.
+     * Nothing happens if the values are the same, only changed fields are recounted.
+     * Records which are not in the phonebook (deleted ones) only get new field values
+     * @param record record to update
+     * @param name new name
+     * @param state new state
+     * @param phone new phone
+     */
+    private void setRecordValues(Record record, String name, String state, String phone) {
+        String oldName = record.getName();
+        String oldState = record.getState();
+        String oldPhone = record.getPhone();
+        if (name.equals(oldName) && state.equals(oldState) && phone.equals(oldPhone)) {
+            return; // for example the current record is "updated" on each navigation
+        }
+        record.setName(name);
+        record.setState(state);
+        record.setPhone(phone);
+        if (searchIndex.contains(record)) {
+            statistics.update(oldName, oldState, oldPhone, name, state, phone);
+            if (!name.equals(oldName)) {
+                searchIndex.update(record);
+            }
+        }
+    }
+
+    /**
+     * Getter of the aggregates of the phonebook, they are kept up to date on each change
+     * @return statistics
+     */
+    RecordStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Counting Records per group for an arbitrary grouping, the phonebook is scanned in parallel.
+     * For counts per state, area code and name initial use getStatistics, they do not require scanning
+     * @param groupKey function evaluating the group of the record, it must not have side effects
+     * @return number of records per group
+     */
+    Map<String, Long> countBy(Function<Record, String> groupKey) {
+        return records.parallelStream().collect(Collectors.groupingByConcurrent(groupKey, Collectors.counting()));
+    }
+
+    /**
+     * Adding the listener notified after each change of the phonebook
+     * @param listener listener
+     */
+    void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Notifying all change listeners
+     */
+    private void notifyChangeListeners() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Fuzzy search of the Records by name, tolerant to misspelling
+     * @param query name to search
+     * @param limit maximal number of results
+     * @return up to limit Records ordered from the best match
+     */
+    List<Record> searchByName(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Applying batch operation over the phonebook: each Record matching the predicate is transformed and validated with the existing rules.
+     * Matching, transformation and validation are performed in parallel, so predicate and transform must not have side effects.
+     * Transform receives a copy of the record and returns the record with new values (it may modify and return the copy itself).
+     * The batch is applied atomically: if any record fails validation nothing is changed and the failures are reported,
+     * otherwise all changes are applied and remembered as a single undoable unit
+     * @param predicate condition of the records to change
+     * @param transform transformation of a copy of the record
+     * @return result of the batch operation with the changes or the failures
+     */
+    BatchEdit applyBatch(Predicate<Record> predicate, UnaryOperator<Record> transform) {
+        /*
+         * finding matching records and evaluating their new values in parallel, results are kept in order of the phonebook
+         */
+        int[] matchingIndexes = IntStream.range(0, records.size()).parallel()
+                .filter(index -> predicate.test(records.get(index)))
+                .toArray();
+        Record[] newValues = new Record[matchingIndexes.length];
+        String[] validationMessages = new String[matchingIndexes.length];
+        IntStream.range(0, matchingIndexes.length).parallel().forEach(position -> {
+            Record transformed = transform.apply(records.get(matchingIndexes[position]).copy());
+            newValues[position] = transformed;
+            validationMessages[position] = RecordValidator.validate(transformed.getName(), transformed.getState(), transformed.getPhone());
+        });
+
+        /*
+         * collecting changes and failures, records which were not actually changed by the transformation are skipped
+         */
+        ArrayList<BatchEdit.Change> changes = new ArrayList<>();
+        ArrayList<BatchEdit.Failure> failures = new ArrayList<>();
+        for (int position = 0; position < matchingIndexes.length; position++) {
+            Record record = records.get(matchingIndexes[position]);
+            Record transformed = newValues[position];
+            if (validationMessages[position] != null) {
+                failures.add(new BatchEdit.Failure(matchingIndexes[position], transformed, validationMessages[position]));
+            }
+            else if (!record.getName().equals(transformed.getName()) || !record.getState().equals(transformed.getState()) || !record.getPhone().equals(transformed.getPhone())) {
+                changes.add(new BatchEdit.Change(record, record.copy(), transformed));
+            }
+        }
+
+        /*
+         * rejecting the whole batch if any record failed validation
+         */
+        if (!failures.isEmpty()) {
+            return new BatchEdit(new ArrayList<>(), failures);
+        }
+
+        /*
+         * applying changes and remembering the batch to be able to undo it
+         */
+        for (BatchEdit.Change change : changes) {
+            Record values = change.getNewValues();
+            setRecordValues(change.getRecord(), values.getName(), values.getState(), values.getPhone());
+        }
+        BatchEdit batchEdit = new BatchEdit(changes, failures);
+        if (!changes.isEmpty()) {
+            undoStack.push(batchEdit);
+            if (undoStack.size() > UNDO_LIMIT) {
+                undoStack.removeLast();
+            }
+            notifyChangeListeners();
+        }
+        return batchEdit;
+    }
+
+    /**
+     * Checking if there is a batch operation to undo
+     * @return true if undo is possible, otherwise false
+     */
+    boolean canUndoBatch() {
+        return !undoStack.isEmpty();
+    }
+
+    /**
+     * Undoing the last applied batch operation. Only the fields changed by the batch get their previous values back,
+     * and only if they still have the values set by the batch: edits made after the batch are kept.
+     * Records deleted from the phonebook after the batch are restored too, but stay out of the phonebook
+     * @return undone batch operation, or null if there is nothing to undo
+     */
+    BatchEdit undoLastBatch() {
+        BatchEdit batchEdit = undoStack.poll();
+        if (batchEdit == null) {
+            return null;
+        }
+        for (BatchEdit.Change change : batchEdit.getChanges()) {
+            Record record = change.getRecord();
+            Record oldValues = change.getOldValues();
+            Record newValues = change.getNewValues();
+            setRecordValues(record,
+                    undoneValue(record.getName(), oldValues.getName(), newValues.getName()),
+                    undoneValue(record.getState(), oldValues.getState(), newValues.getState()),
+                    undoneValue(record.getPhone(), oldValues.getPhone(), newValues.getPhone()));
+        }
+        notifyChangeListeners();
+        return batchEdit;
+    }
+
+    /**
+     * Evaluating the value of a single field after undo of the batch
+     * @param currentValue current value of the field
+     * @param oldValue value before the batch
+     * @param newValue value set by the batch
+     * @return old value if the field still has the value set by the batch, otherwise current value (it was edited after the batch)
+     */
+    private static String undoneValue(String currentValue, String oldValue, String newValue) {
+        return currentValue.equals(newValue) ? oldValue : currentValue;
     }
 }
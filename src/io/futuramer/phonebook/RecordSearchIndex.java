@@ -0,0 +1,667 @@
+package io.futuramer.phonebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fuzzy search index over names of the phonebook Records.
+ * Combines a trigram inverted index (compact int[] postings lists) with Soundex phonetic keys,
+ * candidates are ranked with bounded edit distance (Levenshtein) against the query.
+ * Equal names are indexed once, so thousands of "John Smith" records cost a single posting per trigram.
+ * The index is updated incrementally, RecordList notifies it on each add, edit and delete of a Record.
+ */
+class RecordSearchIndex {
+
+    /**
+     * Maximal edit distance between query and name for the candidate to be accepted without phonetic match
+     */
+    private static final int MAX_EDIT_DISTANCE = 3;
+
+    /**
+     * Multiplier of k - how many best scored names are verified with edit distance
+     */
+    private static final int CANDIDATES_PER_RESULT = 16;
+
+    /**
+     * Score of a shared Soundex key, score of a shared trigram is 1
+     */
+    private static final int PHONETIC_WEIGHT = 2;
+
+    /**
+     * Number of name ids scored at once, scores of the window (32 KB) stay in CPU cache
+     */
+    private static final int SCORES_WINDOW_SIZE = 1 << 13;
+
+    /**
+     * Initial capacity of a single postings list
+     */
+    private static final int INITIAL_POSTINGS_CAPACITY = 4;
+
+    /**
+     * Compact postings list - growable array of primitive name ids, ids are always appended in ascending order
+     */
+    private static final class Postings {
+        private int[] ids = new int[INITIAL_POSTINGS_CAPACITY];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size << 1);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * Open addressing hash table from trigram (three chars packed into a long) to its postings list, keys are not boxed
+     */
+    private static final class TrigramTable {
+        private long[] keys = new long[1 << 12];
+        private Postings[] postings = new Postings[1 << 12];
+        private int size;
+
+        Postings get(long trigram) {
+            int mask = keys.length - 1;
+            for (int slot = slot(trigram, mask); postings[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == trigram) {
+                    return postings[slot];
+                }
+            }
+            return null;
+        }
+
+        Postings getOrCreate(long trigram) {
+            Postings found = get(trigram);
+            if (found != null) {
+                return found;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            Postings created = new Postings();
+            put(trigram, created);
+            size++;
+            return created;
+        }
+
+        private void put(long trigram, Postings value) {
+            int mask = keys.length - 1;
+            int slot = slot(trigram, mask);
+            while (postings[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = trigram;
+            postings[slot] = value;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldPostings = postings;
+            keys = new long[oldKeys.length << 1];
+            postings = new Postings[oldPostings.length << 1];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldPostings[slot] != null) {
+                    put(oldKeys[slot], oldPostings[slot]);
+                }
+            }
+        }
+
+        private static int slot(long trigram, int mask) {
+            long hash = trigram * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 40) & mask;
+        }
+    }
+
+    /**
+     * Relevance of the name to the query, the same keys are used by the index and by merging of results of several indexes (shards)
+     */
+    private static final class Relevance implements Comparable<Relevance> {
+        private final int distance;
+        private final boolean isPhoneticMatch;
+        private final int trigramHits;
+
+        Relevance(int distance, boolean isPhoneticMatch, int trigramHits) {
+            this.distance = distance;
+            this.isPhoneticMatch = isPhoneticMatch;
+            this.trigramHits = trigramHits;
+        }
+
+        /**
+         * Checking if the name is similar enough to be a search result
+         * @return true if the edit distance is small or the name sounds like the query
+         */
+        boolean isAccepted() {
+            return distance <= MAX_EDIT_DISTANCE || isPhoneticMatch;
+        }
+
+        /**
+         * Ranking: smaller edit distance first, then phonetic matches, then more trigram hits
+         */
+        @Override
+        public int compareTo(Relevance other) {
+            if (distance != other.distance) {
+                return Integer.compare(distance, other.distance);
+            }
+            if (isPhoneticMatch != other.isPhoneticMatch) {
+                return isPhoneticMatch ? -1 : 1;
+            }
+            return Integer.compare(other.trigramHits, trigramHits);
+        }
+    }
+
+    /**
+     * Normalized query with its trigrams and phonetic keys, evaluated once per search
+     */
+    private static final class Query {
+        private final String name;
+        private final long[] trigrams;
+        private final String[] phoneticKeys;
+
+        Query(String query) {
+            name = normalize(query);
+            trigrams = trigrams(name);
+            phoneticKeys = phoneticKeys(name);
+        }
+
+        /**
+         * Evaluating relevance of the normalized name
+         * @param name normalized name
+         * @return relevance
+         */
+        Relevance relevance(String name) {
+            long[] nameTrigrams = trigrams(name);
+            int trigramHits = 0;
+            for (long trigram : trigrams) {
+                if (Arrays.binarySearch(nameTrigrams, trigram) >= 0) {
+                    trigramHits++;
+                }
+            }
+            boolean isPhoneticMatch = false;
+            for (String key : phoneticKeys(name)) {
+                isPhoneticMatch |= Arrays.asList(phoneticKeys).contains(key);
+            }
+            return new Relevance(boundedEditDistance(this.name, name, MAX_EDIT_DISTANCE), isPhoneticMatch, trigramHits);
+        }
+    }
+
+    /**
+     * Trigram to postings list of name ids
+     */
+    private TrigramTable trigramPostings = new TrigramTable();
+
+    /**
+     * Soundex key of a single word of the name to postings list of name ids
+     */
+    private final HashMap<String, Postings> phoneticPostings = new HashMap<>();
+
+    /**
+     * Live normalized name to its name id
+     */
+    private final HashMap<String, Integer> nameIds = new HashMap<>();
+
+    /**
+     * Name id to normalized name. Names without records leave null (tombstone) slots behind, they are skipped during search
+     */
+    private String[] namesById = new String[16];
+
+    /**
+     * Name id to its records: a single Record or RecordGroup if there are several records with this name
+     */
+    private Object[] recordsById = new Object[16];
+
+    /**
+     * Live Record to the id of the name it was indexed with
+     */
+    private final IdentityHashMap<Record, Integer> idsByRecord = new IdentityHashMap<>();
+
+    /**
+     * Next free name id, equal to the number of used slots (live and tombstones)
+     */
+    private int nextId;
+
+    /**
+     * Reusable scores (trigram hits and phonetic weight) of the window of name ids being scored, it is cleared after each window
+     */
+    private final int[] windowScores = new int[SCORES_WINDOW_SIZE];
+
+    /**
+     * Several records with the same name
+     */
+    private static final class RecordGroup {
+        private Record[] records = new Record[2];
+        private int size;
+
+        void add(Record record) {
+            if (size == records.length) {
+                records = Arrays.copyOf(records, size << 1);
+            }
+            records[size++] = record;
+        }
+
+        void remove(Record record) {
+            for (int index = 0; index < size; index++) {
+                if (records[index] == record) {
+                    System.arraycopy(records, index + 1, records, index, size - index - 1);
+                    records[--size] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilding the whole index from the collection of Records, used on loading of the phonebook
+     * @param records collection of phone records
+     */
+    synchronized void rebuild(List<Record> records) {
+        trigramPostings = new TrigramTable();
+        phoneticPostings.clear();
+        nameIds.clear();
+        idsByRecord.clear();
+        namesById = new String[16];
+        recordsById = new Object[16];
+        nextId = 0;
+        for (Record record : records) {
+            add(record);
+        }
+    }
+
+    /**
+     * Adding new Record to the index. Only the first record with a given name adds postings, others join its name id
+     * @param record record to index
+     */
+    synchronized void add(Record record) {
+        if (record.getName() == null || idsByRecord.containsKey(record)) {
+            return;
+        }
+        String name = normalize(record.getName());
+        Integer existingId = nameIds.get(name);
+        if (existingId != null) {
+            int id = existingId;
+            Object records = recordsById[id];
+            if (records instanceof RecordGroup) {
+                ((RecordGroup) records).add(record);
+            }
+            else {
+                RecordGroup group = new RecordGroup();
+                group.add((Record) records);
+                group.add(record);
+                recordsById[id] = group;
+            }
+            idsByRecord.put(record, existingId);
+            return;
+        }
+
+        int id = nextId++;
+        if (id == namesById.length) {
+            namesById = Arrays.copyOf(namesById, id << 1);
+            recordsById = Arrays.copyOf(recordsById, id << 1);
+        }
+        namesById[id] = name;
+        recordsById[id] = record;
+        nameIds.put(name, id);
+        idsByRecord.put(record, id);
+
+        for (long trigram : trigrams(name)) {
+            trigramPostings.getOrCreate(trigram).add(id);
+        }
+        for (String key : phoneticKeys(name)) {
+            phoneticPostings.computeIfAbsent(key, newKey -> new Postings()).add(id);
+        }
+    }
+
+    /**
+     * Removing the Record from the index. If it was the last record with its name, the name slot becomes a tombstone,
+     * the index is compacted when tombstones prevail
+     * @param record record to remove
+     */
+    synchronized void remove(Record record) {
+        Integer id = idsByRecord.remove(record);
+        if (id == null) {
+            return;
+        }
+        Object records = recordsById[id];
+        if (records instanceof RecordGroup && ((RecordGroup) records).size > 1) {
+            RecordGroup group = (RecordGroup) records;
+            group.remove(record);
+            if (group.size == 1) {
+                recordsById[id] = group.records[0];
+            }
+            return;
+        }
+        nameIds.remove(namesById[id]);
+        namesById[id] = null;
+        recordsById[id] = null;
+
+        /*
+         * compacting: re-indexing live records only if more than half of the name slots are tombstones
+         */
+        if (nextId > 64 && nameIds.size() < nextId / 2) {
+            rebuild(new ArrayList<>(idsByRecord.keySet()));
+        }
+    }
+
+    /**
+     * Checking if the Record is indexed
+     * @param record record
+     * @return true if the record was added and not removed, otherwise false
+     */
+    synchronized boolean contains(Record record) {
+        return idsByRecord.containsKey(record);
+    }
+
+    /**
+     * Re-indexing the Record after its name was changed. Nothing happens if the name is the same as indexed
+     * or if the record is not indexed (for example it was deleted from the phonebook)
+     * @param record edited record
+     */
+    synchronized void update(Record record) {
+        Integer id = idsByRecord.get(record);
+        if (id == null || (record.getName() != null && namesById[id].equals(normalize(record.getName())))) {
+            return;
+        }
+        remove(record);
+        add(record);
+    }
+
+    /**
+     * Fuzzy search of the Records by name
+     * @param query name as typed by user, possibly misspelled
+     * @param k maximal number of results
+     * @return up to k Records ordered from the best match
+     */
+    synchronized List<Record> search(String query, int k) {
+        ArrayList<Record> result = new ArrayList<>();
+        Query parsedQuery = new Query(query);
+        if (parsedQuery.name.isEmpty() || k <= 0) {
+            return result;
+        }
+
+        /*
+         * collecting postings lists of the query: trigrams and phonetic keys (Soundex of each word)
+         */
+        ArrayList<Postings> queryPostings = new ArrayList<>();
+        ArrayList<Integer> queryWeights = new ArrayList<>();
+        int maxScore = 0;
+        for (long trigram : parsedQuery.trigrams) {
+            Postings postings = trigramPostings.get(trigram);
+            if (postings != null) {
+                queryPostings.add(postings);
+                queryWeights.add(1);
+                maxScore += 1;
+            }
+        }
+        for (String key : parsedQuery.phoneticKeys) {
+            Postings postings = phoneticPostings.get(key);
+            if (postings != null) {
+                queryPostings.add(postings);
+                queryWeights.add(PHONETIC_WEIGHT);
+                maxScore += PHONETIC_WEIGHT;
+            }
+        }
+
+        /*
+         * scoring names window by window: every list adds its weights to the scores of the window, then the window is collected and cleared.
+         * Lists are read sequentially (their ids are sorted) and scores of the window stay in CPU cache, so even lists of frequent trigrams are cheap.
+         * Every hit of every list is counted, names scoring at least minScore are collected as candidates. When there are twice more candidates
+         * than needed, only the best candidatesLimit are kept and minScore grows, so the best candidates are exactly the best scored names
+         */
+        int candidatesLimit = k * CANDIDATES_PER_RESULT;
+        int[] candidateIds = new int[candidatesLimit * 2];
+        int[] candidateScores = new int[candidatesLimit * 2];
+        int candidatesCount = 0;
+        int minScore = 1;
+        int[] positions = new int[queryPostings.size()];
+        for (int windowStart = 0; windowStart < nextId; windowStart += SCORES_WINDOW_SIZE) {
+            int windowEnd = Math.min(windowStart + SCORES_WINDOW_SIZE, nextId);
+            for (int list = 0; list < positions.length; list++) {
+                Postings postings = queryPostings.get(list);
+                int weight = queryWeights.get(list);
+                int position = positions[list];
+                while (position < postings.size && postings.ids[position] < windowEnd) {
+                    windowScores[postings.ids[position++] - windowStart] += weight;
+                }
+                positions[list] = position;
+            }
+            for (int offset = 0; offset < windowEnd - windowStart; offset++) {
+                int score = windowScores[offset];
+                windowScores[offset] = 0;
+                if (score < minScore || namesById[windowStart + offset] == null) {
+                    continue; // tombstones of removed names are skipped
+                }
+                if (candidatesCount == candidateIds.length) {
+                    minScore = keepBest(candidateIds, candidateScores, candidatesCount, candidatesLimit, maxScore) + 1;
+                    candidatesCount = candidatesLimit;
+                    if (score < minScore) {
+                        continue;
+                    }
+                }
+                candidateIds[candidatesCount] = windowStart + offset;
+                candidateScores[candidatesCount++] = score;
+            }
+        }
+        if (candidatesCount > candidatesLimit) {
+            keepBest(candidateIds, candidateScores, candidatesCount, candidatesLimit, maxScore);
+            candidatesCount = candidatesLimit;
+        }
+
+        /*
+         * verifying candidates with bounded edit distance and phonetic match, ranking them and expanding names to records
+         */
+        ArrayList<Relevance> relevances = new ArrayList<>(candidatesCount);
+        ArrayList<Integer> acceptedIds = new ArrayList<>(candidatesCount);
+        for (int index = 0; index < candidatesCount; index++) {
+            int id = candidateIds[index];
+            Relevance relevance = parsedQuery.relevance(namesById[id]);
+            if (relevance.isAccepted()) {
+                relevances.add(relevance);
+                acceptedIds.add(id);
+            }
+        }
+        Integer[] ranking = new Integer[acceptedIds.size()];
+        for (int index = 0; index < ranking.length; index++) {
+            ranking[index] = index;
+        }
+        Arrays.sort(ranking, (first, second) -> relevances.get(first).compareTo(relevances.get(second)));
+        for (int position = 0; position < ranking.length && result.size() < k; position++) {
+            Object records = recordsById[acceptedIds.get(ranking[position])];
+            if (records instanceof RecordGroup) {
+                RecordGroup group = (RecordGroup) records;
+                for (int index = 0; index < group.size && result.size() < k; index++) {
+                    result.add(group.records[index]);
+                }
+            }
+            else {
+                result.add((Record) records);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorting Records found by several indexes (for example by shards) the same way as a single index ranks them
+     * @param query name as typed by user
+     * @param records found records, sorted in place, equally relevant records keep their order
+     */
+    static void sortByRelevance(String query, List<Record> records) {
+        Query parsedQuery = new Query(query);
+        IdentityHashMap<Record, Relevance> relevances = new IdentityHashMap<>();
+        for (Record record : records) {
+            relevances.put(record, parsedQuery.relevance(normalize(record.getName())));
+        }
+        records.sort((first, second) -> relevances.get(first).compareTo(relevances.get(second)));
+    }
+
+    /**
+     * Keeping only limit candidates with the best scores, candidates with equal scores are kept in order of their ids.
+     * The score of the limit-th best candidate is found with a histogram of scores (no sorting required)
+     * @param ids candidate ids, the kept ones are moved to the beginning of the array
+     * @param scores scores of the candidates, moved together with ids
+     * @param count number of candidates, not less than limit
+     * @param limit number of candidates to keep
+     * @param maxScore maximal possible score
+     * @return score of the worst kept candidate
+     */
+    private static int keepBest(int[] ids, int[] scores, int count, int limit, int maxScore) {
+        int[] histogram = new int[maxScore + 1];
+        for (int index = 0; index < count; index++) {
+            histogram[scores[index]]++;
+        }
+        int minScore = maxScore;
+        int betterCount = 0;
+        while (betterCount + histogram[minScore] < limit) {
+            betterCount += histogram[minScore--];
+        }
+        int tiesLeft = limit - betterCount;
+        int kept = 0;
+        for (int index = 0; index < count; index++) {
+            if (scores[index] > minScore || (scores[index] == minScore && tiesLeft-- > 0)) {
+                ids[kept] = ids[index];
+                scores[kept++] = scores[index];
+            }
+        }
+        return minScore;
+    }
+
+    /**
+     * Normalizing name for indexing and search: lowercase, single spaces between words, no spaces around
+     * @param name name to normalize
+     * @return normalized name
+     */
+    static String normalize(String name) {
+        /*
+         * most names are already spaced correctly, they are only lowercased (toLowerCase does not copy lowercase strings)
+         */
+        boolean isSpacedCorrectly = name.isEmpty() || (name.charAt(0) != ' ' && name.charAt(name.length() - 1) != ' ');
+        for (int index = 0; index < name.length() && isSpacedCorrectly; index++) {
+            char letter = name.charAt(index);
+            isSpacedCorrectly = letter == ' ' ? name.charAt(index - 1) != ' ' : !Character.isWhitespace(letter);
+        }
+        if (isSpacedCorrectly) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+
+        StringBuilder normalized = new StringBuilder(name.length());
+        boolean isSpacePending = false;
+        for (int index = 0; index < name.length(); index++) {
+            char letter = name.charAt(index);
+            if (Character.isWhitespace(letter)) {
+                isSpacePending = normalized.length() > 0;
+                continue;
+            }
+            if (isSpacePending) {
+                normalized.append(' ');
+                isSpacePending = false;
+            }
+            normalized.append(letter);
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splitting the normalized name to trigrams. The name is padded with spaces, so short names and word boundaries produce trigrams too
+     * @param name normalized name
+     * @return trigrams packed into longs, sorted, duplicates removed
+     */
+    static long[] trigrams(String name) {
+        String padded = "  " + name + " ";
+        long[] trigrams = new long[padded.length() - 2];
+        for (int index = 0; index < trigrams.length; index++) {
+            trigrams[index] = ((long) padded.charAt(index) << 32) | ((long) padded.charAt(index + 1) << 16) | padded.charAt(index + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int index = 0; index < trigrams.length; index++) {
+            if (index == 0 || trigrams[index] != trigrams[index - 1]) {
+                trigrams[distinct++] = trigrams[index];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * Soundex keys of all words of the normalized name
+     * @param name normalized name
+     * @return distinct non-empty Soundex keys
+     */
+    private static String[] phoneticKeys(String name) {
+        ArrayList<String> keys = new ArrayList<>(2);
+        for (String word : name.split(" ")) {
+            String key = soundex(word);
+            if (!key.isEmpty() && !keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    /**
+     * American Soundex code of a single word, for example "Robert" and "Rupert" are both R163
+     * @param word lowercase word
+     * @return four chars Soundex key, or empty string for a word without letters
+     */
+    static String soundex(String word) {
+        final String codes = "01230120022455012623010202"; // codes of letters a..z
+        StringBuilder key = new StringBuilder(4);
+        char lastCode = 0;
+        for (int index = 0; index < word.length() && key.length() < 4; index++) {
+            char letter = Character.toLowerCase(word.charAt(index));
+            if (letter < 'a' || letter > 'z') {
+                continue;
+            }
+            char code = codes.charAt(letter - 'a');
+            if (key.length() == 0) {
+                key.append(Character.toUpperCase(letter));
+            }
+            else if (code != '0' && code != lastCode) {
+                key.append(code);
+            }
+            // "h" and "w" do not separate letters with the same code, vowels do
+            if (letter != 'h' && letter != 'w') {
+                lastCode = code;
+            }
+        }
+        while (key.length() > 0 && key.length() < 4) {
+            key.append('0');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Levenshtein distance limited by maxDistance, computation stops as soon as the limit is exceeded
+     * @param first first string
+     * @param second second string
+     * @param maxDistance limit of the distance
+     * @return edit distance, or maxDistance + 1 if it is greater than the limit
+     */
+    static int boundedEditDistance(String first, String second, int maxDistance) {
+        if (Math.abs(first.length() - second.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int column = 0; column <= second.length(); column++) {
+            previous[column] = column;
+        }
+        for (int row = 1; row <= first.length(); row++) {
+            current[0] = row;
+            int rowMinimum = current[0];
+            for (int column = 1; column <= second.length(); column++) {
+                int cost = first.charAt(row - 1) == second.charAt(column - 1) ? 0 : 1;
+                current[column] = Math.min(Math.min(current[column - 1] + 1, previous[column] + 1), previous[column - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[column]);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[second.length()], maxDistance + 1);
+    }
+}
@@ -0,0 +1,234 @@
+package io.futuramer.phonebook;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Aggregates of the phonebook: exact counts of Records per state, per area code and per name initial,
+ * and counts of distinct names and phones (exact, or HyperLogLog estimate for huge phonebooks, see DistinctCounter).
+ * Aggregates are updated incrementally by RecordList on each add, edit and delete of a Record, reading them does not scan the phonebook
+ */
+class RecordStatistics {
+
+    /**
+     * Key of the group of records with a value which can not be grouped (for example phone without area code)
+     */
+    static final String UNKNOWN_GROUP = "?";
+
+    /**
+     * Total number of records
+     */
+    private long recordsCount;
+
+    /**
+     * Number of records per state
+     */
+    private final HashMap<String, Long> countsByState = new HashMap<>();
+
+    /**
+     * Number of records per area code, for example "212" for phone (212) 555 - 1234
+     */
+    private final HashMap<String, Long> countsByAreaCode = new HashMap<>();
+
+    /**
+     * Number of records per first letter of the name
+     */
+    private final HashMap<String, Long> countsByNameInitial = new HashMap<>();
+
+    /**
+     * Distinct names
+     */
+    private DistinctCounter distinctNames = new DistinctCounter();
+
+    /**
+     * Distinct phones
+     */
+    private DistinctCounter distinctPhones = new DistinctCounter();
+
+    /**
+     * Rebuilding all aggregates from the collection of Records, used on loading of the phonebook
+     * @param records collection of phone records
+     */
+    synchronized void rebuild(List<Record> records) {
+        recordsCount = 0;
+        countsByState.clear();
+        countsByAreaCode.clear();
+        countsByNameInitial.clear();
+        distinctNames = new DistinctCounter();
+        distinctPhones = new DistinctCounter();
+        for (Record record : records) {
+            add(record.getName(), record.getState(), record.getPhone());
+        }
+    }
+
+    /**
+     * Counting the values of the added record
+     * @param name name
+     * @param state state
+     * @param phone phone
+     */
+    synchronized void add(String name, String state, String phone) {
+        recordsCount++;
+        countsByState.merge(state, 1L, Long::sum);
+        countsByAreaCode.merge(areaCode(phone), 1L, Long::sum);
+        countsByNameInitial.merge(nameInitial(name), 1L, Long::sum);
+        distinctNames.add(name);
+        distinctPhones.add(phone);
+    }
+
+    /**
+     * Discounting the values of the removed record
+     * @param name name
+     * @param state state
+     * @param phone phone
+     */
+    synchronized void remove(String name, String state, String phone) {
+        recordsCount--;
+        decrement(countsByState, state);
+        decrement(countsByAreaCode, areaCode(phone));
+        decrement(countsByNameInitial, nameInitial(name));
+        distinctNames.remove(name);
+        distinctPhones.remove(phone);
+    }
+
+    /**
+     * Recounting the values of the edited record, only changed fields are recounted.
+     * So editing of a state does not touch distinct names and phones, their estimates do not become stale (see DistinctCounter)
+     * @param oldName name before the edit
+     * @param oldState state before the edit
+     * @param oldPhone phone before the edit
+     * @param name new name
+     * @param state new state
+     * @param phone new phone
+     */
+    synchronized void update(String oldName, String oldState, String oldPhone, String name, String state, String phone) {
+        if (!Objects.equals(oldName, name)) {
+            decrement(countsByNameInitial, nameInitial(oldName));
+            countsByNameInitial.merge(nameInitial(name), 1L, Long::sum);
+            distinctNames.remove(oldName);
+            distinctNames.add(name);
+        }
+        if (!Objects.equals(oldState, state)) {
+            decrement(countsByState, oldState);
+            countsByState.merge(state, 1L, Long::sum);
+        }
+        if (!Objects.equals(oldPhone, phone)) {
+            decrement(countsByAreaCode, areaCode(oldPhone));
+            countsByAreaCode.merge(areaCode(phone), 1L, Long::sum);
+            distinctPhones.remove(oldPhone);
+            distinctPhones.add(phone);
+        }
+    }
+
+    /**
+     * Getter of the total number of records
+     * @return number of records
+     */
+    synchronized long getRecordsCount() {
+        return recordsCount;
+    }
+
+    /**
+     * Getter of the number of records per state
+     * @return copy of the counts ordered from the largest group
+     */
+    synchronized Map<String, Long> getCountsByState() {
+        return sortedCopy(countsByState);
+    }
+
+    /**
+     * Getter of the number of records per area code
+     * @return copy of the counts ordered from the largest group
+     */
+    synchronized Map<String, Long> getCountsByAreaCode() {
+        return sortedCopy(countsByAreaCode);
+    }
+
+    /**
+     * Getter of the number of records per first letter of the name
+     * @return copy of the counts ordered from the largest group
+     */
+    synchronized Map<String, Long> getCountsByNameInitial() {
+        return sortedCopy(countsByNameInitial);
+    }
+
+    /**
+     * Getter of the number of distinct names
+     * @return exact number, or estimate for huge phonebooks (see getDistinctNamesAccuracy)
+     */
+    synchronized long getDistinctNamesCount() {
+        return distinctNames.count();
+    }
+
+    /**
+     * Getter of the accuracy of the number of distinct names
+     * @return accuracy, stale estimate may include names deleted or edited since the last rebuild
+     */
+    synchronized DistinctCounter.Accuracy getDistinctNamesAccuracy() {
+        return distinctNames.getAccuracy();
+    }
+
+    /**
+     * Getter of the number of distinct phones
+     * @return exact number, or estimate for huge phonebooks (see getDistinctPhonesAccuracy)
+     */
+    synchronized long getDistinctPhonesCount() {
+        return distinctPhones.count();
+    }
+
+    /**
+     * Getter of the accuracy of the number of distinct phones
+     * @return accuracy, stale estimate may include phones deleted or edited since the last rebuild
+     */
+    synchronized DistinctCounter.Accuracy getDistinctPhonesAccuracy() {
+        return distinctPhones.getAccuracy();
+    }
+
+    /**
+     * Extracting area code from the phone, for example "212" for (212) 555 - 1234
+     * @param phone phone
+     * @return area code, or UNKNOWN_GROUP if the phone has unexpected format
+     */
+    static String areaCode(String phone) {
+        return phone != null && phone.length() >= 5 && phone.charAt(0) == '(' && phone.charAt(4) == ')' ? phone.substring(1, 4) : UNKNOWN_GROUP;
+    }
+
+    /**
+     * Extracting the first letter of the name
+     * @param name name
+     * @return uppercase first letter, or UNKNOWN_GROUP for empty name
+     */
+    static String nameInitial(String name) {
+        return name != null && !name.isEmpty() ? String.valueOf(Character.toUpperCase(name.charAt(0))) : UNKNOWN_GROUP;
+    }
+
+    /**
+     * Decrementing the count of the group, empty groups are removed
+     * @param counts counts per group
+     * @param key group
+     */
+    private static void decrement(HashMap<String, Long> counts, String key) {
+        counts.computeIfPresent(key, (group, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Copying the counts ordered from the largest group, groups of equal size are ordered by key
+     * @param counts counts per group
+     * @return ordered copy
+     */
+    private static Map<String, Long> sortedCopy(HashMap<String, Long> counts) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((first, second) -> second.getValue().equals(first.getValue()) ?
+                first.getKey().compareTo(second.getKey()) :
+                Long.compare(second.getValue(), first.getValue()));
+        LinkedHashMap<String, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,75 @@
+package io.futuramer.phonebook;
+
+import java.util.regex.Pattern;
+
+/**
+ * Validation rules of the phonebook Record fields, shared by the editor and batch operations.
+ * Patterns are compiled once, the class is stateless and thread-safe
+ */
+final class RecordValidator {
+
+    /*
+     * Static String values.
+     * Normally kept in .properties file | CMS | DB
+     */
+    static final String INVALID_NAME_MESSAGE = "Invalid Name. Names should start with an uppercase letter followed by at least two characters";
+    static final String INVALID_STATE_MESSAGE = "Invalid State. States should consist of one or two words";
+    static final String INVALID_PHONE_MESSAGE = "Invalid Phone number. Ex (212) 555 - 1234";
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Z][a-zA-Z]{2,}([\\s][A-Z][a-zA-Z]{2,})*$");
+    private static final Pattern STATE_PATTERN = Pattern.compile("^[A-Z][a-zA-Z]{2,}([\\s][A-Z][a-zA-Z]{2,})?$");
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^[(][1-9][0-9]{2}[)][\\s][1-9][0-9]{2}[\\s][-][\\s][0-9]{4}$");
+
+    private RecordValidator() {
+    }
+
+    /**
+     * Method to validate all fields of the record, fields are checked in order name, state, phone
+     * @param name String value of name to validate
+     * @param state String value of state to validate
+     * @param phone String value of phone to validate
+     * @return message describing the first invalid field, or null if validation passed
+     */
+    static String validate(String name, String state, String phone) {
+        if (!isNameValid(name)) {
+            return INVALID_NAME_MESSAGE;
+        }
+        if (!isStateValid(state)) {
+            return INVALID_STATE_MESSAGE;
+        }
+        if (!isPhoneValid(phone)) {
+            return INVALID_PHONE_MESSAGE;
+        }
+        return null;
+    }
+
+    /**
+     * Method to validate name
+     *  Name: must start with an uppercase letter followed by at least two letters (upper or lower). For simplicity, we disallow numbers and special characters.
+     * @param name String value of name to validate
+     * @return true if validation passed, otherwise false
+     */
+    static boolean isNameValid(String name) {
+        return name != null && NAME_PATTERN.matcher(name).matches();
+    }
+
+    /**
+     * Method to validate state
+     *  State: must consist of one OR two words. Each word should start with an upper case letter followed by at least two letters (upper or lower).
+     * @param state String value of state to validate
+     * @return true if validation passed, otherwise false
+     */
+    static boolean isStateValid(String state) {
+        return state != null && STATE_PATTERN.matcher(state).matches();
+    }
+
+    /**
+     * Method to validate phone
+     *  Phone: must be in the form (###) ### - #### Where # is a number between 0 and 9 except the first and fourth digits, they must be between 1 and 9. Notice the spaces after the ')' and around the '-'.
+     * @param phone String value of phone to validate
+     * @return true if validation passed, otherwise false
+     */
+    static boolean isPhoneValid(String phone) {
+        return phone != null && PHONE_PATTERN.matcher(phone).matches();
+    }
+}
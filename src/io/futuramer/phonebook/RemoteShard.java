@@ -0,0 +1,186 @@
+package io.futuramer.phonebook;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard of the phonebook served by ShardServer in a separate local process, requests are sent over loopback socket (see ShardProtocol).
+ * One connection is kept open and reused, requests are sent one at a time. Found records are detached copies.
+ * Connecting and waiting for the response are limited in time, a timeout fails the request like any other connection issue
+ */
+class RemoteShard implements Shard, Closeable {
+
+    /**
+     * Maximal time of connecting to the server
+     */
+    static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+
+    /**
+     * Default maximal time of waiting for the response to a query
+     */
+    static final int QUERY_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Default maximal time of waiting for the response to LOAD and SAVE, the server reads or writes the whole shard file
+     */
+    static final int FILE_TIMEOUT_MILLIS = 120_000;
+
+    /**
+     * Port of the ShardServer on loopback interface
+     */
+    private final int port;
+
+    /**
+     * Maximal time of waiting for the response to a query, in milliseconds
+     */
+    private final int queryTimeoutMillis;
+
+    /**
+     * Maximal time of waiting for the response to LOAD and SAVE, in milliseconds
+     */
+    private final int fileTimeoutMillis;
+
+    private Socket socket;
+
+    private BufferedReader reader;
+
+    private Writer writer;
+
+    /**
+     * Creating the shard, the connection is opened on the first request
+     * @param port port of the ShardServer on loopback interface
+     */
+    RemoteShard(int port) {
+        this(port, QUERY_TIMEOUT_MILLIS, FILE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creating the shard with custom timeouts, the connection is opened on the first request
+     * @param port port of the ShardServer on loopback interface
+     * @param queryTimeoutMillis maximal time of waiting for the response to a query
+     * @param fileTimeoutMillis maximal time of waiting for the response to LOAD and SAVE
+     */
+    RemoteShard(int port, int queryTimeoutMillis, int fileTimeoutMillis) {
+        this.port = port;
+        this.queryTimeoutMillis = queryTimeoutMillis;
+        this.fileTimeoutMillis = fileTimeoutMillis;
+    }
+
+    @Override
+    public void load() throws IOException {
+        request(fileTimeoutMillis, ShardProtocol.LOAD);
+    }
+
+    @Override
+    public void save() throws IOException {
+        request(fileTimeoutMillis, ShardProtocol.SAVE);
+    }
+
+    @Override
+    public void addRecord(Record record) throws IOException {
+        request(queryTimeoutMillis, ShardProtocol.ADD, record.getName(), record.getState(), record.getPhone());
+    }
+
+    @Override
+    public List<Record> searchByName(String query, int limit) throws IOException {
+        return toRecords(request(queryTimeoutMillis, ShardProtocol.SEARCH, String.valueOf(limit), query));
+    }
+
+    @Override
+    public List<Record> findByPhone(String phone) throws IOException {
+        return toRecords(request(queryTimeoutMillis, ShardProtocol.PHONE, phone));
+    }
+
+    @Override
+    public long getRecordsCount() throws IOException {
+        return Long.parseLong(request(queryTimeoutMillis, ShardProtocol.COUNT).get(0)[0]);
+    }
+
+    @Override
+    public Map<String, Long> getCountsByState() throws IOException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String[] fields : request(queryTimeoutMillis, ShardProtocol.STATES)) {
+            counts.put(fields[0], Long.parseLong(fields[1]));
+        }
+        return counts;
+    }
+
+    /**
+     * Closing the connection, it is opened again on the next request
+     */
+    @Override
+    public synchronized void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            }
+            catch (IOException e) {
+                e.printStackTrace(); // it should not happen, nothing to do anyway
+            }
+            socket = null;
+        }
+    }
+
+    /**
+     * Sending the request and reading the response. The connection is closed in case of connection issues or timeout,
+     * so a late response can not be taken for the response to the next request, the next request reconnects
+     * @param timeoutMillis maximal time of waiting for each line of the response
+     * @param fields fields of the request line, command first
+     * @return fields of each response line
+     * @throws IOException in case of connection issues, timeout (SocketTimeoutException) or error on the server side
+     */
+    private synchronized List<String[]> request(int timeoutMillis, String... fields) throws IOException {
+        if (socket == null) {
+            Socket connection = new Socket();
+            try {
+                connection.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+                reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+                writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8));
+            }
+            catch (IOException e) {
+                connection.close();
+                throw e;
+            }
+            socket = connection;
+        }
+        try {
+            socket.setSoTimeout(timeoutMillis);
+            writer.write(ShardProtocol.line(fields) + "\n");
+            writer.flush();
+            return ShardProtocol.readResponse(reader);
+        }
+        catch (ShardProtocol.ErrorResponseException e) {
+            throw e; // error reported by the server, the connection is fine
+        }
+        catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creating records from the response lines
+     * @param lines fields of each response line
+     * @return detached records
+     */
+    private static List<Record> toRecords(List<String[]> lines) {
+        List<Record> records = new ArrayList<>(lines.size());
+        for (String[] fields : lines) {
+            records.add(ShardProtocol.toRecord(fields));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,63 @@
+package io.futuramer.phonebook;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One part of the sharded phonebook. A shard is either kept in this JVM (LocalShard)
+ * or served by a separate local process over loopback socket (RemoteShard).
+ * Implementations are thread-safe, so the router can query all shards in parallel
+ */
+interface Shard {
+
+    /**
+     * Loading the shard from its file, previous records of the shard are replaced
+     * @throws IOException in case of IO issues | unknown structure of document | connection issues
+     */
+    void load() throws IOException;
+
+    /**
+     * Saving (serializing) the shard to its file
+     * @throws IOException in case of IO issues | connection issues
+     */
+    void save() throws IOException;
+
+    /**
+     * Adding new Record to the shard, the record must be already validated
+     * @param record record to add
+     * @throws IOException in case of connection issues
+     */
+    void addRecord(Record record) throws IOException;
+
+    /**
+     * Fuzzy search of the Records by name, tolerant to misspelling
+     * @param query name to search
+     * @param limit maximal number of results
+     * @return up to limit Records ordered from the best match
+     * @throws IOException in case of connection issues
+     */
+    List<Record> searchByName(String query, int limit) throws IOException;
+
+    /**
+     * Finding the Records with exactly the same phone
+     * @param phone phone
+     * @return found records
+     * @throws IOException in case of connection issues
+     */
+    List<Record> findByPhone(String phone) throws IOException;
+
+    /**
+     * Getter of the number of records in the shard
+     * @return number of records
+     * @throws IOException in case of connection issues
+     */
+    long getRecordsCount() throws IOException;
+
+    /**
+     * Getter of the number of records per state in the shard
+     * @return counts per state
+     * @throws IOException in case of connection issues
+     */
+    Map<String, Long> getCountsByState() throws IOException;
+}
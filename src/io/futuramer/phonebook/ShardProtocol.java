@@ -0,0 +1,113 @@
+package io.futuramer.phonebook;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text protocol between RemoteShard and ShardServer. Each request is one line of tab separated fields, command first.
+ * Each response is zero or more lines of tab separated fields terminated by END line, or a single ERROR line with the message.
+ * Records are sent as "name TAB state TAB phone" lines
+ */
+final class ShardProtocol {
+
+    static final String LOAD = "LOAD";
+    static final String SAVE = "SAVE";
+    static final String ADD = "ADD";
+    static final String SEARCH = "SEARCH";
+    static final String PHONE = "PHONE";
+    static final String COUNT = "COUNT";
+    static final String STATES = "STATES";
+    static final String END = "END";
+    static final String ERROR = "ERROR";
+
+    static final String SEPARATOR = "\t";
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * Exception thrown when the server responds with ERROR line, the connection stays usable
+     */
+    static class ErrorResponseException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        ErrorResponseException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Joining fields to one line. Tabs and line breaks inside of the fields are replaced with spaces, they can not be transferred
+     * @param fields fields
+     * @return line without line break
+     */
+    static String line(String... fields) {
+        StringBuilder line = new StringBuilder();
+        for (String field : fields) {
+            if (line.length() > 0) {
+                line.append(SEPARATOR);
+            }
+            line.append(field.replaceAll("[\\t\\r\\n]", " "));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Splitting the line to fields
+     * @param line line
+     * @return fields
+     */
+    static String[] fields(String line) {
+        return line.split(SEPARATOR, -1);
+    }
+
+    /**
+     * Writing the record as a response line
+     * @param writer writer
+     * @param record record
+     * @throws IOException in case of connection issues
+     */
+    static void writeRecord(Writer writer, Record record) throws IOException {
+        writer.write(line(record.getName(), record.getState(), record.getPhone()) + "\n");
+    }
+
+    /**
+     * Reading response lines till END line
+     * @param reader reader
+     * @return fields of each line
+     * @throws IOException in case of connection issues
+     * @throws ErrorResponseException in case of ERROR response
+     */
+    static List<String[]> readResponse(BufferedReader reader) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        for (String line = reader.readLine(); ; line = reader.readLine()) {
+            if (line == null) {
+                throw new IOException("Shard connection closed");
+            }
+            String[] fields = fields(line);
+            if (fields[0].equals(END)) {
+                return lines;
+            }
+            if (fields[0].equals(ERROR)) {
+                throw new ErrorResponseException(fields.length > 1 ? fields[1] : "Shard error");
+            }
+            lines.add(fields);
+        }
+    }
+
+    /**
+     * Creating a record from the response line
+     * @param fields name, state and phone
+     * @return new detached Record
+     */
+    static Record toRecord(String[] fields) {
+        Record record = new Record();
+        record.setName(fields[0]);
+        record.setState(fields[1]);
+        record.setPhone(fields[2]);
+        return record;
+    }
+}
@@ -0,0 +1,160 @@
+package io.futuramer.phonebook;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Process serving one LocalShard to RemoteShard clients over loopback socket, see ShardProtocol.
+ * Started as a separate JVM: java -cp ... io.futuramer.phonebook.ShardServer shard-file.xml port
+ */
+public class ShardServer {
+
+    /**
+     * Served shard
+     */
+    private final LocalShard shard;
+
+    /**
+     * Creating the server of the shard
+     * @param shard served shard
+     */
+    ShardServer(LocalShard shard) {
+        this.shard = shard;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: ShardServer <shard-file.xml> <port>");
+            return;
+        }
+        LocalShard shard = new LocalShard(new File(args[0]));
+        if (shard.getFile().isFile()) {
+            shard.load();
+        }
+        new ShardServer(shard).serve(Integer.parseInt(args[1]));
+    }
+
+    /**
+     * Accepting connections on loopback interface, each connection is served by its own thread
+     * @param port port to listen
+     * @throws IOException in case the port can not be bound
+     */
+    void serve(int port) throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Shard " + shard.getFile().getName() + " is served on port " + serverSocket.getLocalPort());
+            serve(serverSocket);
+        }
+    }
+
+    /**
+     * Accepting connections on already bound server socket till it is closed, each connection is served by its own thread
+     * @param serverSocket bound server socket, for example on ephemeral port
+     * @throws IOException in case the server socket is closed or fails
+     */
+    void serve(ServerSocket serverSocket) throws IOException {
+        while (true) {
+            Socket socket = serverSocket.accept();
+            Thread thread = new Thread(() -> handleConnection(socket), "shard-connection");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Serving requests of one client till it closes the connection
+     * @param socket client connection
+     */
+    private void handleConnection(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                try {
+                    handleRequest(ShardProtocol.fields(line), writer);
+                    writer.write(ShardProtocol.END + "\n");
+                }
+                catch (IOException | RuntimeException e) {
+                    writer.write(ShardProtocol.line(ShardProtocol.ERROR, String.valueOf(e.getMessage())) + "\n");
+                }
+                writer.flush();
+            }
+        }
+        catch (IOException e) {
+            System.out.println("Shard connection failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serving one request, writing response lines except the final END
+     * @param request fields of the request line, command first
+     * @param writer writer of the response
+     * @throws IOException in case of IO issues of the shard file
+     * @throws IllegalArgumentException in case of unknown command, wrong number of fields or invalid record
+     */
+    private void handleRequest(String[] request, Writer writer) throws IOException {
+        switch (request[0]) {
+            case ShardProtocol.LOAD:
+                shard.load();
+                break;
+            case ShardProtocol.SAVE:
+                shard.save();
+                break;
+            case ShardProtocol.ADD:
+                /*
+                 * validating the record before the shard is changed, the client may send anything
+                 */
+                requireFields(request, 4);
+                String validationMessage = RecordValidator.validate(request[1], request[2], request[3]);
+                if (validationMessage != null) {
+                    throw new IllegalArgumentException(validationMessage);
+                }
+                shard.addRecord(ShardProtocol.toRecord(Arrays.copyOfRange(request, 1, 4)));
+                break;
+            case ShardProtocol.SEARCH:
+                requireFields(request, 3);
+                for (Record record : shard.searchByName(request[2], Integer.parseInt(request[1]))) {
+                    ShardProtocol.writeRecord(writer, record);
+                }
+                break;
+            case ShardProtocol.PHONE:
+                requireFields(request, 2);
+                for (Record record : shard.findByPhone(request[1])) {
+                    ShardProtocol.writeRecord(writer, record);
+                }
+                break;
+            case ShardProtocol.COUNT:
+                writer.write(shard.getRecordsCount() + "\n");
+                break;
+            case ShardProtocol.STATES:
+                for (Map.Entry<String, Long> entry : shard.getCountsByState().entrySet()) {
+                    writer.write(ShardProtocol.line(entry.getKey(), String.valueOf(entry.getValue())) + "\n");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + request[0]);
+        }
+    }
+
+    /**
+     * Checking the number of fields of the request
+     * @param request fields of the request line, command first
+     * @param count required number of fields including the command
+     * @throws IllegalArgumentException if the request has another number of fields
+     */
+    private static void requireFields(String[] request, int count) {
+        if (request.length != count) {
+            throw new IllegalArgumentException("Command " + request[0] + " requires " + (count - 1) + " field(s), got " + (request.length - 1));
+        }
+    }
+}
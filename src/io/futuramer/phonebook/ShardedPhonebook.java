@@ -0,0 +1,304 @@
+package io.futuramer.phonebook;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Phonebook partitioned across N shards by hash of the phone or of the state.
+ * The router sends each new record to its shard, loads and saves all shards in parallel
+ * and serves queries across shards, merging their results. A shard not responding in time fails the request
+ */
+class ShardedPhonebook {
+
+    /**
+     * Maximal time of waiting for all shards to answer a query
+     */
+    private static final long QUERY_TIMEOUT_MILLIS = 15_000;
+
+    /**
+     * Maximal time of waiting for all shards to load or save their files
+     */
+    private static final long FILE_TIMEOUT_MILLIS = 180_000;
+
+    /**
+     * Field used to choose the shard of the record
+     */
+    enum Partitioning {
+        BY_PHONE,
+        BY_STATE;
+
+        /**
+         * Evaluating the shard of the record
+         * @param record record
+         * @param shardsCount number of shards
+         * @return index of the shard
+         */
+        int shardOf(Record record, int shardsCount) {
+            return shardOf(this == BY_PHONE ? record.getPhone() : record.getState(), shardsCount);
+        }
+
+        /**
+         * Evaluating the shard of the phone or state. String hash code is defined by Java specification,
+         * so every process places the value to the same shard
+         * @param value phone or state
+         * @param shardsCount number of shards
+         * @return index of the shard
+         */
+        int shardOf(String value, int shardsCount) {
+            return Math.floorMod(value.hashCode(), shardsCount);
+        }
+    }
+
+    /**
+     * Shards, the index of the shard is its position in the list
+     */
+    private final List<Shard> shards;
+
+    private final Partitioning partitioning;
+
+    /**
+     * Threads performing requests to the shards in parallel, one per shard
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Creating the router over the shards. The same shards must always be passed in the same order with the same partitioning
+     * @param shards shards, local or remote
+     * @param partitioning field used to choose the shard of the record
+     */
+    ShardedPhonebook(List<Shard> shards, Partitioning partitioning) {
+        this.shards = new ArrayList<>(shards);
+        this.partitioning = partitioning;
+        this.executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-router");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Getter of the shard files of the phonebook file, for example Phonebook.shard-0.xml, Phonebook.shard-1.xml for Phonebook.xml
+     * @param file phonebook XML file
+     * @param shardsCount number of shards
+     * @return shard files
+     */
+    static List<File> shardFiles(File file, int shardsCount) {
+        String name = file.getName();
+        String baseName = name.toLowerCase(Locale.ROOT).endsWith(".xml") ? name.substring(0, name.length() - 4) : name;
+        List<File> files = new ArrayList<>(shardsCount);
+        for (int index = 0; index < shardsCount; index++) {
+            files.add(new File(file.getAbsoluteFile().getParentFile(), baseName + ".shard-" + index + ".xml"));
+        }
+        return files;
+    }
+
+    /**
+     * Splitting single phonebook file to shard files next to it, the original file is not changed
+     * @param file phonebook XML file
+     * @param shardsCount number of shards
+     * @param partitioning field used to choose the shard of the record
+     * @return sharded phonebook with local shards, already loaded
+     * @throws IOException in case of IO issues | unknown structure of document
+     */
+    static ShardedPhonebook split(File file, int shardsCount, Partitioning partitioning) throws IOException {
+        List<ArrayList<Record>> partitions = new ArrayList<>(shardsCount);
+        for (int index = 0; index < shardsCount; index++) {
+            partitions.add(new ArrayList<>());
+        }
+        try {
+            for (Record record : PhonebookFile.load(file)) {
+                partitions.get(partitioning.shardOf(record, shardsCount)).add(record);
+            }
+            List<File> files = shardFiles(file, shardsCount);
+            for (int index = 0; index < shardsCount; index++) {
+                PhonebookFile.save(files.get(index), partitions.get(index));
+            }
+            List<Shard> shards = new ArrayList<>(shardsCount);
+            for (File shardFile : files) {
+                shards.add(new LocalShard(shardFile));
+            }
+            ShardedPhonebook phonebook = new ShardedPhonebook(shards, partitioning);
+            phonebook.load();
+            return phonebook;
+        }
+        catch (ParserConfigurationException | SAXException | TransformerException e) {
+            throw new IOException("File " + file.getName() + " can not be split", e);
+        }
+    }
+
+    /**
+     * Loading all shards in parallel
+     * @throws IOException in case any shard fails to load
+     */
+    void load() throws IOException {
+        forEachShard(shard -> {
+            shard.load();
+            return null;
+        }, FILE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Saving all shards in parallel
+     * @throws IOException in case any shard fails to save
+     */
+    void save() throws IOException {
+        forEachShard(shard -> {
+            shard.save();
+            return null;
+        }, FILE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Validating new Record and adding it to its shard
+     * @param record record to add
+     * @throws IOException in case of connection issues
+     * @throws IllegalArgumentException if the record is not valid, the message describes the first invalid field
+     */
+    void addRecord(Record record) throws IOException {
+        String validationMessage = RecordValidator.validate(record.getName(), record.getState(), record.getPhone());
+        if (validationMessage != null) {
+            throw new IllegalArgumentException(validationMessage);
+        }
+        shards.get(partitioning.shardOf(record, shards.size())).addRecord(record);
+    }
+
+    /**
+     * Fuzzy search of the Records by name across all shards. Best matches of each shard are merged with the same ranking
+     * (edit distance, phonetic match, trigram hits of the normalized names) as a single RecordSearchIndex uses
+     * @param query name to search
+     * @param limit maximal number of results
+     * @return up to limit Records ordered from the best match
+     * @throws IOException in case any shard fails
+     */
+    List<Record> searchByName(String query, int limit) throws IOException {
+        List<Record> found = new ArrayList<>();
+        for (List<Record> shardRecords : forEachShard(shard -> shard.searchByName(query, limit), QUERY_TIMEOUT_MILLIS)) {
+            found.addAll(shardRecords);
+        }
+        RecordSearchIndex.sortByRelevance(query, found);
+        return new ArrayList<>(found.subList(0, Math.min(limit, found.size())));
+    }
+
+    /**
+     * Finding the Records with exactly the same phone. Only one shard is asked if the phonebook is partitioned by phone
+     * @param phone phone
+     * @return found records
+     * @throws IOException in case of shard failure
+     */
+    List<Record> findByPhone(String phone) throws IOException {
+        if (partitioning == Partitioning.BY_PHONE) {
+            return shards.get(partitioning.shardOf(phone, shards.size())).findByPhone(phone);
+        }
+        List<Record> found = new ArrayList<>();
+        for (List<Record> shardRecords : forEachShard(shard -> shard.findByPhone(phone), QUERY_TIMEOUT_MILLIS)) {
+            found.addAll(shardRecords);
+        }
+        return found;
+    }
+
+    /**
+     * Getter of the number of records in all shards
+     * @return number of records
+     * @throws IOException in case any shard fails
+     */
+    long getRecordsCount() throws IOException {
+        long count = 0;
+        for (Long shardCount : forEachShard(Shard::getRecordsCount, QUERY_TIMEOUT_MILLIS)) {
+            count += shardCount;
+        }
+        return count;
+    }
+
+    /**
+     * Getter of the number of records per state in all shards
+     * @return counts per state
+     * @throws IOException in case any shard fails
+     */
+    Map<String, Long> getCountsByState() throws IOException {
+        Map<String, Long> counts = new HashMap<>();
+        for (Map<String, Long> shardCounts : forEachShard(Shard::getCountsByState, QUERY_TIMEOUT_MILLIS)) {
+            shardCounts.forEach((state, count) -> counts.merge(state, count, Long::sum));
+        }
+        return counts;
+    }
+
+    /**
+     * Request to a single shard
+     * @param <T> type of the result
+     */
+    private interface ShardRequest<T> {
+        T perform(Shard shard) throws IOException;
+    }
+
+    /**
+     * Performing the request on all shards in parallel and waiting for all of them, but not longer than the timeout.
+     * A shard not answering in time is a failure of the shard, its request is cancelled
+     * @param request request
+     * @param timeoutMillis maximal time of waiting for all shards
+     * @param <T> type of the result
+     * @return results in order of the shards
+     * @throws IOException the first failure of the shards
+     */
+    private <T> List<T> forEachShard(ShardRequest<T> request, long timeoutMillis) throws IOException {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(executor.submit(() -> request.perform(shard)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<T> results = new ArrayList<>(shards.size());
+        IOException failure = null;
+        for (int index = 0; index < futures.size(); index++) {
+            Future<T> future = futures.get(index);
+            try {
+                results.add(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+            catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            }
+            catch (TimeoutException e) {
+                future.cancel(true);
+                if (failure == null) {
+                    failure = new IOException("Shard " + index + " did not respond in " + timeoutMillis + " ms", e);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for shards", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Stopping the threads of the router and closing connections to remote shards, shards are not saved
+     */
+    void close() {
+        executor.shutdown();
+        for (Shard shard : shards) {
+            if (shard instanceof RemoteShard) {
+                ((RemoteShard) shard).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.futuramer.phonebook;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Class measuring startup of the application. Each event is recorded once, the first time it happens
+ */
+final class StartupMetrics implements StartupMetricsMXBean {
+
+    /**
+     * The only instance, registered in platform MBean server
+     */
+    private static final StartupMetrics INSTANCE = new StartupMetrics();
+
+    private volatile long timeToWindowShownMillis = -1;
+
+    private volatile long timeToFirstRecordMillis = -1;
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * Registering metrics in platform MBean server, so they can be read with any JMX client (jconsole, monitoring agent)
+     */
+    static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("io.futuramer.phonebook:type=StartupMetrics"));
+        }
+        catch (JMException e) {
+            e.printStackTrace(); // it should not happen, the application works without metrics anyway
+        }
+    }
+
+    /**
+     * Recording the moment when the main window was shown
+     */
+    static void windowShown() {
+        if (INSTANCE.timeToWindowShownMillis < 0) {
+            INSTANCE.timeToWindowShownMillis = millisSinceJvmStart();
+            System.out.println("Time to window shown: " + INSTANCE.timeToWindowShownMillis + " ms");
+        }
+    }
+
+    /**
+     * Recording the moment when the first record of the phonebook was shown
+     */
+    static void firstRecordShown() {
+        if (INSTANCE.timeToFirstRecordMillis < 0) {
+            INSTANCE.timeToFirstRecordMillis = millisSinceJvmStart();
+            System.out.println("Time to first record: " + INSTANCE.timeToFirstRecordMillis + " ms");
+        }
+    }
+
+    @Override
+    public long getTimeToWindowShownMillis() {
+        return timeToWindowShownMillis;
+    }
+
+    @Override
+    public long getTimeToFirstRecordMillis() {
+        return timeToFirstRecordMillis;
+    }
+
+    /**
+     * Evaluating time since the start of the JVM
+     * @return milliseconds
+     */
+    private static long millisSinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
@@ -0,0 +1,20 @@
+package io.futuramer.phonebook;
+
+/**
+ * Startup metrics of the application exported via JMX (object name io.futuramer.phonebook:type=StartupMetrics).
+ * All times are measured in milliseconds from the start of the JVM, -1 means the event did not happen yet
+ */
+public interface StartupMetricsMXBean {
+
+    /**
+     * Getter of time till the main window was shown
+     * @return milliseconds from the start of the JVM
+     */
+    long getTimeToWindowShownMillis();
+
+    /**
+     * Getter of time till the first record of the phonebook was shown (preloaded or loaded by user)
+     * @return milliseconds from the start of the JVM
+     */
+    long getTimeToFirstRecordMillis();
+}
@@ -0,0 +1,149 @@
+package io.futuramer.phonebook;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Window showing live statistics of the phonebook: total and distinct counts, counts per state, per area code and per name initial.
+ * Statistics are refreshed on each change of the phonebook while the window is shown, reading them does not scan the phonebook
+ */
+class StatisticsDashboard {
+
+    private static final String TITLE = "Phonebook statistics";
+
+    /**
+     * Phonebook to show statistics of
+     */
+    private RecordList recordList;
+
+    private final Stage stage = new Stage();
+
+    private final Label recordsCountLabel = new Label();
+
+    private final Label distinctNamesLabel = new Label();
+
+    private final Label distinctPhonesLabel = new Label();
+
+    private final ListView<String> byStateListView = new ListView<>();
+
+    private final ListView<String> byAreaCodeListView = new ListView<>();
+
+    private final ListView<String> byNameInitialListView = new ListView<>();
+
+    /**
+     * Creating the window (not shown yet) and subscribing to changes of the phonebook
+     * @param recordList phonebook
+     */
+    StatisticsDashboard(RecordList recordList) {
+        /*
+         * totals on top, three columns of grouped counts below
+         */
+        HBox groupsBox = new HBox(5,
+                createColumn("By state", byStateListView),
+                createColumn("By area code", byAreaCodeListView),
+                createColumn("By name initial", byNameInitialListView));
+        VBox root = new VBox(5, recordsCountLabel, distinctNamesLabel, distinctPhonesLabel, groupsBox);
+        root.setPadding(new Insets(5));
+
+        stage.setTitle(TITLE);
+        stage.setScene(new Scene(root, 480, 320));
+
+        setRecordList(recordList);
+    }
+
+    /**
+     * Switching the window to another phonebook (for example a newly loaded one) and subscribing to its changes
+     * @param recordList phonebook
+     */
+    void setRecordList(RecordList recordList) {
+        this.recordList = recordList;
+
+        /*
+         * refreshing only visible window, hidden one is refreshed when it is shown again.
+         * Changes of the previous phonebook are ignored, it is not shown any more
+         */
+        recordList.addChangeListener(() -> {
+            if (stage.isShowing() && this.recordList == recordList) {
+                refresh();
+            }
+        });
+        if (stage.isShowing()) {
+            refresh();
+        }
+    }
+
+    /**
+     * Showing the window with actual statistics, or bringing it to front if it is already shown
+     */
+    void show() {
+        refresh();
+        stage.show();
+        stage.toFront();
+    }
+
+    /**
+     * Reading actual statistics and showing them
+     */
+    private void refresh() {
+        RecordStatistics statistics = recordList.getStatistics();
+        recordsCountLabel.setText("Records: " + statistics.getRecordsCount());
+        distinctNamesLabel.setText("Distinct names: " + formatDistinctCount(statistics.getDistinctNamesCount(), statistics.getDistinctNamesAccuracy()));
+        distinctPhonesLabel.setText("Distinct phones: " + formatDistinctCount(statistics.getDistinctPhonesCount(), statistics.getDistinctPhonesAccuracy()));
+        showCounts(byStateListView, statistics.getCountsByState());
+        showCounts(byAreaCodeListView, statistics.getCountsByAreaCode());
+        showCounts(byNameInitialListView, statistics.getCountsByNameInitial());
+    }
+
+    /**
+     * Creating a column with the header and the list of counts
+     * @param header header of the column
+     * @param listView list of counts
+     * @return column
+     */
+    private static VBox createColumn(String header, ListView<String> listView) {
+        Label headerLabel = new Label(header);
+        headerLabel.setFont(Font.font(null, FontWeight.BOLD, 12));
+        return new VBox(5, headerLabel, listView);
+    }
+
+    /**
+     * Formatting the number of distinct values, example "12", "~1200000" or "~1200000 (may include deleted, reload to refresh)"
+     * @param count number of distinct values
+     * @param accuracy accuracy of the number
+     * @return formatted number
+     */
+    private static String formatDistinctCount(long count, DistinctCounter.Accuracy accuracy) {
+        switch (accuracy) {
+            case EXACT:
+                return String.valueOf(count);
+            case ESTIMATE:
+                return "~" + count;
+            default:
+                return "~" + count + " (may include deleted, reload to refresh)";
+        }
+    }
+
+    /**
+     * Showing the counts in the list, example "New York: 12"
+     * @param listView list to fill
+     * @param counts counts per group ordered from the largest group
+     */
+    private static void showCounts(ListView<String> listView, Map<String, Long> counts) {
+        List<String> items = new ArrayList<>(counts.size());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            items.add(entry.getKey() + ": " + entry.getValue());
+        }
+        listView.getItems().setAll(items); // replacing all items at once, so the list is re-rendered only once
+    }
+}
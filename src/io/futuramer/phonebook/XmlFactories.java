@@ -0,0 +1,113 @@
+package io.futuramer.phonebook;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * Shared XML parsers and serializers for every XML code path of the project.
+ * Factories are looked up (ServiceLoader) and configured only once, parser and serializer instances are created once per thread and reused.
+ * Configuration is hardened: DTDs, external entities, XInclude and external stylesheets are disabled,
+ * phonebook files do not need any of them, and skipping them makes parsing faster too
+ */
+final class XmlFactories {
+
+    /**
+     * Document builder factory, created on first use. Factories are not guaranteed to be thread-safe, access is synchronized on the class
+     */
+    private static DocumentBuilderFactory documentBuilderFactory;
+
+    /**
+     * Transformer factory, created on first use. Factories are not guaranteed to be thread-safe, access is synchronized on the class
+     */
+    private static TransformerFactory transformerFactory;
+
+    /**
+     * Document builder of the current thread. Builders are not thread-safe, but can be reused after reset
+     */
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<>();
+
+    /**
+     * Transformer of the current thread. Transformers are not thread-safe, but can be reused after reset
+     */
+    private static final ThreadLocal<Transformer> TRANSFORMER = new ThreadLocal<>();
+
+    private XmlFactories() {
+    }
+
+    /**
+     * Getter of the document builder of the current thread, reset to its initial state
+     * @return document builder, it must not be passed to other threads
+     * @throws ParserConfigurationException it should not happen
+     */
+    static DocumentBuilder documentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = DOCUMENT_BUILDER.get();
+        if (builder == null) {
+            builder = newDocumentBuilder();
+            DOCUMENT_BUILDER.set(builder);
+        }
+        else {
+            builder.reset();
+        }
+        return builder;
+    }
+
+    /**
+     * Getter of the transformer of the current thread, reset to its initial state
+     * @return transformer, it must not be passed to other threads
+     * @throws TransformerConfigurationException it should not happen
+     */
+    static Transformer transformer() throws TransformerConfigurationException {
+        Transformer transformer = TRANSFORMER.get();
+        if (transformer == null) {
+            transformer = newTransformer();
+            TRANSFORMER.set(transformer);
+        }
+        else {
+            transformer.reset();
+        }
+        return transformer;
+    }
+
+    /**
+     * Creating new document builder, the factory is created and hardened on first call
+     * @return document builder
+     * @throws ParserConfigurationException if the parser does not support hardening features, it should not happen with JDK parser
+     */
+    private static synchronized DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        if (documentBuilderFactory == null) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); // document with DOCTYPE is rejected
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            factory.setXIncludeAware(false);
+            factory.setExpandEntityReferences(false);
+            documentBuilderFactory = factory;
+        }
+        return documentBuilderFactory.newDocumentBuilder();
+    }
+
+    /**
+     * Creating new transformer, the factory is created and hardened on first call
+     * @return transformer
+     * @throws TransformerConfigurationException if the transformer does not support hardening features, it should not happen with JDK transformer
+     */
+    private static synchronized Transformer newTransformer() throws TransformerConfigurationException {
+        if (transformerFactory == null) {
+            TransformerFactory factory = TransformerFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+            transformerFactory = factory;
+        }
+        return transformerFactory.newTransformer();
+    }
+}
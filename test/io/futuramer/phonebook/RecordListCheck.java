@@ -0,0 +1,172 @@
+package io.futuramer.phonebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reproducible checks of batch edit and undo of RecordList, it does not need JavaFX or any test framework (see README for the commands):
+ *
+ *   java -cp out io.futuramer.phonebook.RecordListCheck
+ *
+ * Exits with AssertionError on the first failed check
+ */
+class RecordListCheck {
+
+    public static void main(String[] args) {
+        checkRejectedBatch();
+        checkUndoRestoresValues();
+        checkUndoKeepsLaterEdits();
+        checkUndoOfDeletedRecord();
+        checkUndoLimit();
+        System.out.println("All checks passed");
+    }
+
+    /**
+     * A batch with a single invalid result changes nothing: records, search index, statistics and undo history stay the same
+     */
+    private static void checkRejectedBatch() {
+        RecordList recordList = phonebook();
+        Map<String, Long> countsByState = recordList.getStatistics().getCountsByState();
+
+        BatchEdit batchEdit = recordList.applyBatch(record -> true, record -> {
+            record.setName(record.getName().replace("Smith", "Smithson"));
+            record.setState(record.getState().equals("Texas") ? "texas" : record.getState()); // invalid: lowercase state
+            return record;
+        });
+
+        check(!batchEdit.isApplied(), "batch with invalid record is rejected");
+        check(batchEdit.getChanges().isEmpty(), "rejected batch has no changes");
+        check(batchEdit.getFailures().size() == 1 && batchEdit.getFailures().get(0).getIndex() == 1, "failure points to the invalid record");
+        check(names(recordList).equals(Arrays.asList("John Smith", "Jane Smith", "Bob Brown")), "names are not changed");
+        check(recordList.getRecords().get(1).getState().equals("Texas"), "state is not changed");
+        List<Record> foundByRejectedName = recordList.searchByName("John Smithson", 10);
+        check(foundByRejectedName.isEmpty() || !foundByRejectedName.get(0).getName().equals("John Smithson"), "search index does not know rejected names");
+        check(recordList.searchByName("John Smith", 1).get(0).getName().equals("John Smith"), "search index still finds old names");
+        check(recordList.getStatistics().getCountsByState().equals(countsByState), "statistics are not changed");
+        check(recordList.getStatistics().getDistinctNamesCount() == 3, "distinct names are not changed");
+        check(!recordList.canUndoBatch(), "rejected batch can not be undone");
+    }
+
+    /**
+     * Undo brings the old values back and re-indexes renamed records, statistics follow
+     */
+    private static void checkUndoRestoresValues() {
+        RecordList recordList = phonebook();
+        BatchEdit batchEdit = recordList.applyBatch(record -> record.getName().endsWith("Smith"), record -> {
+            record.setName(record.getName().replace("Smith", "Taylor"));
+            record.setState("Ohio");
+            return record;
+        });
+        check(batchEdit.isApplied() && batchEdit.getChanges().size() == 2, "batch is applied to matching records only");
+        check(recordList.searchByName("Jane Taylor", 1).get(0).getName().equals("Jane Taylor"), "renamed record is indexed by the new name");
+        check(recordList.getStatistics().getCountsByState().get("Ohio") == 2, "statistics count the new state");
+
+        check(recordList.undoLastBatch() == batchEdit, "the last batch is undone");
+        check(names(recordList).equals(Arrays.asList("John Smith", "Jane Smith", "Bob Brown")), "names are restored");
+        check(recordList.getRecords().get(0).getState().equals("New York"), "states are restored");
+        check(recordList.searchByName("Jane Smith", 1).get(0) == recordList.getRecords().get(1), "restored record is indexed by the old name");
+        List<Record> foundByNewName = recordList.searchByName("Jane Taylor", 10);
+        check(foundByNewName.isEmpty() || !foundByNewName.get(0).getName().equals("Jane Taylor"), "restored record is not indexed by the new name");
+        check(!recordList.getStatistics().getCountsByState().containsKey("Ohio"), "statistics do not count the undone state");
+        check(!recordList.canUndoBatch() && recordList.undoLastBatch() == null, "nothing left to undo");
+    }
+
+    /**
+     * Fields edited after the batch keep their values on undo, untouched fields changed by the batch are restored
+     */
+    private static void checkUndoKeepsLaterEdits() {
+        RecordList recordList = phonebook();
+        recordList.applyBatch(record -> true, record -> {
+            record.setState("Ohio");
+            return record;
+        });
+        Record edited = recordList.getRecords().get(0);
+        recordList.updateRecord(edited, "Johnny Smith", "Utah", edited.getPhone()); // state changed again after the batch
+        Record renamed = recordList.getRecords().get(1);
+        recordList.updateRecord(renamed, "Janet Smith", renamed.getState(), renamed.getPhone()); // only name changed after the batch
+
+        recordList.undoLastBatch();
+        check(edited.getName().equals("Johnny Smith") && edited.getState().equals("Utah"), "fields edited after the batch are kept");
+        check(renamed.getName().equals("Janet Smith"), "name edited after the batch is kept");
+        check(renamed.getState().equals("Texas"), "state still set by the batch is restored");
+        check(recordList.getRecords().get(2).getState().equals("Florida"), "untouched record is restored");
+        check(recordList.getStatistics().getCountsByState().get("Utah") == 1 && !recordList.getStatistics().getCountsByState().containsKey("Ohio"),
+                "statistics follow the undo");
+    }
+
+    /**
+     * Records deleted after the batch get their old values back, but stay out of the phonebook, its index and statistics
+     */
+    private static void checkUndoOfDeletedRecord() {
+        RecordList recordList = phonebook();
+        recordList.applyBatch(record -> true, record -> {
+            record.setName(record.getName().replace(" ", " Mc"));
+            return record;
+        });
+        Record deleted = recordList.getRecords().get(2);
+        recordList.removeRecord(2);
+
+        recordList.undoLastBatch();
+        check(deleted.getName().equals("Bob Brown"), "deleted record gets old values");
+        check(recordList.getRecords().size() == 2 && !recordList.getRecords().contains(deleted), "deleted record stays deleted");
+        check(!recordList.searchByName("Bob Brown", 10).contains(deleted), "deleted record is not indexed");
+        check(recordList.getStatistics().getRecordsCount() == 2 && !recordList.getStatistics().getCountsByState().containsKey("Florida"),
+                "deleted record is not counted");
+    }
+
+    /**
+     * Only the last UNDO_LIMIT batches can be undone, the oldest changes stay
+     */
+    private static void checkUndoLimit() {
+        RecordList recordList = phonebook();
+        Record record = recordList.getRecords().get(0);
+        String[] states = {"Alabama", "Alaska", "Arizona", "Arkansas", "California", "Colorado",
+                "Delaware", "Georgia", "Hawaii", "Idaho", "Illinois", "Indiana"};
+        check(states.length > RecordList.UNDO_LIMIT, "more batches than the limit");
+        for (String state : states) {
+            check(recordList.applyBatch(candidate -> candidate == record, candidate -> {
+                candidate.setState(state);
+                return candidate;
+            }).isApplied(), "batch is applied");
+        }
+        int undone = 0;
+        while (recordList.undoLastBatch() != null) {
+            undone++;
+        }
+        check(undone == RecordList.UNDO_LIMIT, "undo stack is limited, " + undone + " batches undone");
+        check(record.getState().equals(states[states.length - RecordList.UNDO_LIMIT - 1]), "batches over the limit are not undone");
+    }
+
+    private static RecordList phonebook() {
+        RecordList recordList = new RecordList();
+        recordList.setRecords(new ArrayList<>(Arrays.asList(
+                record("John Smith", "New York", "(212) 555 - 1234"),
+                record("Jane Smith", "Texas", "(512) 555 - 2345"),
+                record("Bob Brown", "Florida", "(305) 555 - 3456"))));
+        return recordList;
+    }
+
+    private static List<String> names(RecordList recordList) {
+        List<String> names = new ArrayList<>();
+        for (Record record : recordList.getRecords()) {
+            names.add(record.getName());
+        }
+        return names;
+    }
+
+    private static Record record(String name, String state, String phone) {
+        Record record = new Record();
+        record.setName(name);
+        record.setState(state);
+        record.setPhone(phone);
+        return record;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError(description);
+        }
+    }
+}
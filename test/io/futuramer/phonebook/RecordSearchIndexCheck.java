@@ -0,0 +1,213 @@
+package io.futuramer.phonebook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible checks and benchmark of RecordSearchIndex, it does not need JavaFX or any test framework:
+ *
+ *   javac -d out src/io/futuramer/phonebook/Record.java src/io/futuramer/phonebook/RecordSearchIndex.java test/io/futuramer/phonebook/RecordSearchIndexCheck.java
+ *   java -Xmx4g -cp out io.futuramer.phonebook.RecordSearchIndexCheck 5000000
+ *
+ * The argument is the number of records of the benchmark (default 1000000), data is generated with a fixed seed.
+ * Exits with AssertionError on the first failed check
+ */
+class RecordSearchIndexCheck {
+
+    private static final String[] FIRST_NAMES = {"John", "Michael", "James", "Robert", "Mary", "Patricia", "Jennifer", "William", "David", "Elizabeth"};
+
+    private static final String[] LAST_NAMES = {"Smith", "Williams", "Johnson", "Brown", "Jones", "Miller", "Davis", "Garcia", "Wilson", "Anderson"};
+
+    private static final String[] QUERIES = {"Jon Smith", "Jhon Smyth", "Micheal Wiliams", "Patrisha Jonson", "Elisabeth Andersen"};
+
+    private static final int K = 10;
+
+    public static void main(String[] args) {
+        int benchmarkSize = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        checkSoundex();
+        checkEditDistance();
+        checkNormalization();
+        checkIncrementalUpdates();
+        checkFrequentNames(400_000);
+        checkAgainstBruteForce(20_000);
+        benchmark(benchmarkSize);
+        System.out.println("All checks passed");
+    }
+
+    private static void checkSoundex() {
+        check(RecordSearchIndex.soundex("robert").equals("R163"), "Soundex of Robert");
+        check(RecordSearchIndex.soundex("rupert").equals("R163"), "Soundex of Rupert");
+        check(RecordSearchIndex.soundex("ashcraft").equals("A261"), "Soundex of Ashcraft (h does not separate s and c)");
+        check(RecordSearchIndex.soundex("tymczak").equals("T522"), "Soundex of Tymczak");
+        check(RecordSearchIndex.soundex("pfister").equals("P236"), "Soundex of Pfister");
+        check(RecordSearchIndex.soundex("lee").equals("L000"), "Soundex of Lee is padded");
+        check(RecordSearchIndex.soundex("42").isEmpty(), "Soundex of a word without letters");
+    }
+
+    private static void checkEditDistance() {
+        check(RecordSearchIndex.boundedEditDistance("kitten", "sitting", 3) == 3, "kitten -> sitting");
+        check(RecordSearchIndex.boundedEditDistance("john", "john", 3) == 0, "equal strings");
+        check(RecordSearchIndex.boundedEditDistance("", "abc", 3) == 3, "empty string");
+        check(RecordSearchIndex.boundedEditDistance("michael", "micheal", 3) == 2, "transposition is two edits");
+        check(RecordSearchIndex.boundedEditDistance("abcdefgh", "hgfedcba", 3) == 4, "distance over the limit is limit + 1");
+        check(RecordSearchIndex.boundedEditDistance("ab", "abcdefg", 3) == 4, "length difference over the limit");
+    }
+
+    private static void checkNormalization() {
+        check(RecordSearchIndex.normalize("  John \t  SMITH ").equals("john smith"), "normalization of spaces and case");
+        RecordSearchIndex index = new RecordSearchIndex();
+        Record record = record("John   Smith");
+        index.add(record);
+        check(index.search(" JOHN smith", K).contains(record), "search ignores case and spaces");
+    }
+
+    private static void checkIncrementalUpdates() {
+        RecordSearchIndex index = new RecordSearchIndex();
+        List<Record> records = new ArrayList<>();
+        for (int number = 0; number < 200; number++) {
+            Record record = record(number % 2 == 0 ? "John Smith" : "Name" + number);
+            records.add(record);
+            index.add(record);
+        }
+        check(index.search("John Smith", 200).size() == 100, "all equal names are found");
+
+        Record renamed = records.get(0);
+        renamed.setName("Alice Cooper");
+        index.update(renamed);
+        check(index.search("Alice Cooper", K).get(0) == renamed, "renamed record is found by the new name");
+        check(!index.search("John Smith", 200).contains(renamed), "renamed record is not found by the old name");
+
+        for (Record record : records) {
+            index.remove(record); // compaction happens on the way
+        }
+        check(index.search("John Smith", K).isEmpty(), "removed records are not found");
+        check(!index.contains(renamed), "removed record is not indexed");
+        index.update(renamed);
+        check(!index.contains(renamed), "update does not index removed record");
+    }
+
+    /**
+     * Frequent names share all frequent trigrams, they must still win over rare names with accidental rare trigrams
+     */
+    private static void checkFrequentNames(int size) {
+        Random random = new Random(1);
+        RecordSearchIndex index = new RecordSearchIndex();
+        List<Record> records = new ArrayList<>(size);
+        for (int number = 0; number < size; number++) {
+            String name = number % 10 == 0 ? "John Smith" : FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + randomWord(random);
+            records.add(record(name));
+        }
+        records.add(record("Michael Williams"));
+        index.rebuild(records);
+
+        check(index.search("Jon Smith", K).get(0).getName().equals("John Smith"), "Jon Smith finds John Smith");
+        check(index.search("Jhon Smyth", K).get(0).getName().equals("John Smith"), "Jhon Smyth finds John Smith");
+        check(index.search("Micheal Wiliams", K).get(0).getName().equals("Michael Williams"), "Micheal Wiliams finds Michael Williams");
+    }
+
+    /**
+     * The best result of the index has the same edit distance as the best name found by scanning all names
+     */
+    private static void checkAgainstBruteForce(int size) {
+        Random random = new Random(2);
+        List<Record> records = generate(size, random);
+        RecordSearchIndex index = new RecordSearchIndex();
+        index.rebuild(records);
+        for (int attempt = 0; attempt < 500; attempt++) {
+            String query = misspell(records.get(random.nextInt(size)).getName(), random);
+            String normalizedQuery = RecordSearchIndex.normalize(query);
+            int bestDistance = Integer.MAX_VALUE;
+            for (Record record : records) {
+                bestDistance = Math.min(bestDistance, RecordSearchIndex.boundedEditDistance(normalizedQuery, RecordSearchIndex.normalize(record.getName()), 3));
+            }
+            List<Record> found = index.search(query, K);
+            check(!found.isEmpty(), "nothing found for " + query);
+            int foundDistance = RecordSearchIndex.boundedEditDistance(normalizedQuery, RecordSearchIndex.normalize(found.get(0).getName()), 3);
+            check(foundDistance == bestDistance, "best match of " + query + " has distance " + foundDistance + " instead of " + bestDistance);
+        }
+    }
+
+    private static void benchmark(int size) {
+        Random random = new Random(3);
+        List<Record> records = generate(size, random);
+        RecordSearchIndex index = new RecordSearchIndex();
+
+        long rebuildStart = System.nanoTime();
+        index.rebuild(records);
+        System.out.printf("rebuild of %d records: %d ms%n", size, (System.nanoTime() - rebuildStart) / 1_000_000);
+
+        for (int round = 0; round < 20; round++) { // warm up
+            for (String query : QUERIES) {
+                index.search(query, K);
+            }
+        }
+        for (String query : QUERIES) {
+            int rounds = 20;
+            long start = System.nanoTime();
+            List<Record> found = null;
+            for (int round = 0; round < rounds; round++) {
+                found = index.search(query, K);
+            }
+            System.out.printf("%-20s %6.2f ms  best: %s%n", query, (System.nanoTime() - start) / 1e6 / rounds, found.isEmpty() ? "-" : found.get(0).getName());
+        }
+    }
+
+    /**
+     * Records with realistic distribution: a few very frequent names, many rare generated ones
+     */
+    private static List<Record> generate(int size, Random random) {
+        List<Record> records = new ArrayList<>(size);
+        for (int number = 0; number < size; number++) {
+            String first = random.nextInt(4) == 0 ? capitalize(randomWord(random)) : FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = random.nextInt(2) == 0 ? capitalize(randomWord(random)) : LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            records.add(record(first + " " + last));
+        }
+        return records;
+    }
+
+    private static String misspell(String name, Random random) {
+        StringBuilder misspelled = new StringBuilder(name);
+        int position = 1 + random.nextInt(misspelled.length() - 2);
+        switch (random.nextInt(3)) {
+            case 0:
+                misspelled.deleteCharAt(position);
+                break;
+            case 1:
+                misspelled.insert(position, (char) ('a' + random.nextInt(26)));
+                break;
+            default:
+                misspelled.setCharAt(position, (char) ('a' + random.nextInt(26)));
+                break;
+        }
+        return misspelled.toString();
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 4 + random.nextInt(6);
+        for (int index = 0; index < length; index++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static Record record(String name) {
+        Record record = new Record();
+        record.setName(name);
+        record.setState("New York");
+        record.setPhone("1234567890");
+        return record;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError(description);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.futuramer.phonebook;
+
+import java.util.ArrayList;
+
+/**
+ * Reproducible checks of incremental statistics and distinct counts, it does not need JavaFX or any test framework (see README for the commands):
+ *
+ *   java -Xmx2g -cp out io.futuramer.phonebook.RecordStatisticsCheck
+ *
+ * Exits with AssertionError on the first failed check
+ */
+class RecordStatisticsCheck {
+
+    public static void main(String[] args) {
+        checkExactCounter();
+        checkSwitchToEstimate();
+        checkEditsOfHugePhonebook();
+        System.out.println("All checks passed");
+    }
+
+    /**
+     * Below the limit distinct values are counted exactly, removing the last occurrence of a value discounts it
+     */
+    private static void checkExactCounter() {
+        DistinctCounter counter = new DistinctCounter();
+        counter.add("John Smith");
+        counter.add("John Smith");
+        counter.add("Jane Smith");
+        check(counter.count() == 2 && counter.getAccuracy() == DistinctCounter.Accuracy.EXACT, "two distinct values counted exactly");
+        counter.remove("John Smith");
+        check(counter.count() == 2, "value with remaining occurrence is still counted");
+        counter.remove("John Smith");
+        counter.remove("Unknown Name");
+        check(counter.count() == 1 && counter.getAccuracy() == DistinctCounter.Accuracy.EXACT, "value without occurrences is discounted");
+    }
+
+    /**
+     * Above the limit the counter switches to the estimate, removal makes the estimate stale
+     */
+    private static void checkSwitchToEstimate() {
+        DistinctCounter counter = new DistinctCounter();
+        for (int value = 0; value < DistinctCounter.EXACT_LIMIT; value++) {
+            counter.add(String.valueOf(value));
+        }
+        check(counter.getAccuracy() == DistinctCounter.Accuracy.EXACT && counter.count() == DistinctCounter.EXACT_LIMIT, "exact up to the limit");
+        counter.add(String.valueOf(DistinctCounter.EXACT_LIMIT));
+        check(counter.getAccuracy() == DistinctCounter.Accuracy.ESTIMATE, "estimate above the limit");
+        long estimate = counter.count();
+        check(Math.abs(estimate - (DistinctCounter.EXACT_LIMIT + 1)) < DistinctCounter.EXACT_LIMIT / 20, "estimate is within 5%, got " + estimate);
+        counter.add("0");
+        check(counter.getAccuracy() == DistinctCounter.Accuracy.ESTIMATE, "adding keeps the estimate fresh");
+        counter.remove("0");
+        check(counter.getAccuracy() == DistinctCounter.Accuracy.STALE_ESTIMATE, "removal makes the estimate stale");
+    }
+
+    /**
+     * Edits of a phonebook with distinct names over the limit: no-op edits and edits of other fields do not make the name estimate stale
+     */
+    private static void checkEditsOfHugePhonebook() {
+        ArrayList<Record> records = new ArrayList<>();
+        for (int number = 0; number <= DistinctCounter.EXACT_LIMIT + 100; number++) {
+            records.add(record("Name" + letters(number), "Texas", "(212) 555 - " + (1000 + number % 9000)));
+        }
+        RecordList recordList = new RecordList();
+        recordList.setRecords(records);
+        RecordStatistics statistics = recordList.getStatistics();
+        check(statistics.getDistinctNamesAccuracy() == DistinctCounter.Accuracy.ESTIMATE, "names are estimated in a huge phonebook");
+        check(statistics.getDistinctPhonesAccuracy() == DistinctCounter.Accuracy.EXACT, "phones are counted exactly, there are only 9000 of them");
+
+        Record record = records.get(0);
+        recordList.updateRecord(record, record.getName(), record.getState(), record.getPhone()); // as on each navigation
+        check(statistics.getDistinctNamesAccuracy() == DistinctCounter.Accuracy.ESTIMATE, "no-op edit does not make the estimate stale");
+
+        recordList.updateRecord(record, record.getName(), "Ohio", "(305) 555 - 1234");
+        check(statistics.getDistinctNamesAccuracy() == DistinctCounter.Accuracy.ESTIMATE, "edit of state and phone does not make the name estimate stale");
+        check(statistics.getCountsByState().get("Ohio") == 1 && statistics.getCountsByAreaCode().get("305") == 1, "edited fields are recounted");
+        check(statistics.getDistinctPhonesCount() == 9001, "edited phone is counted exactly");
+
+        recordList.updateRecord(record, "Renamed Person", record.getState(), record.getPhone());
+        check(statistics.getDistinctNamesAccuracy() == DistinctCounter.Accuracy.STALE_ESTIMATE, "rename makes the name estimate stale");
+        check(statistics.getRecordsCount() == records.size(), "number of records is not changed by edits");
+
+        recordList.setRecords(records);
+        check(statistics.getDistinctNamesAccuracy() == DistinctCounter.Accuracy.ESTIMATE, "reload rebuilds the estimate");
+    }
+
+    /**
+     * Letters-only suffix of the name, names must pass validation
+     */
+    private static String letters(int number) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return letters.toString();
+    }
+
+    private static Record record(String name, String state, String phone) {
+        Record record = new Record();
+        record.setName(name);
+        record.setState(state);
+        record.setPhone(phone);
+        return record;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError(description);
+        }
+    }
+}
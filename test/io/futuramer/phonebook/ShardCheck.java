@@ -0,0 +1,321 @@
+package io.futuramer.phonebook;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible checks of the sharded phonebook: ShardServer and RemoteShard run in-process on ephemeral loopback ports.
+ * It does not need JavaFX or any test framework (see README for the commands):
+ *
+ *   java -cp out io.futuramer.phonebook.ShardCheck
+ *
+ * Exits with AssertionError on the first failed check
+ */
+class ShardCheck {
+
+    private static final String[] FIRST_NAMES = {"John", "Jon", "Joan", "Michael", "Mary", "Patricia", "Robert", "Rupert"};
+
+    private static final String[] LAST_NAMES = {"Smith", "Smyth", "Smithe", "Williams", "Wilson", "Johnson", "Jonson", "Brown"};
+
+    private static final String[] STATES = {"Texas", "Ohio", "New York", "Florida"};
+
+    private static final String[] QUERIES = {"Jon Smith", "Jhon Smyth", "Micheal Wiliams", "Patrisha Jonson", "Robet Brown", "  MARY   wilson "};
+
+    public static void main(String[] args) throws IOException {
+        File directory = Files.createTempDirectory("shard-check").toFile();
+        try {
+            checkInvalidAdd(directory);
+            checkErrorAfterPartialResponse();
+            checkReadTimeout();
+            checkMergedRanking(directory);
+        }
+        finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+        System.out.println("All checks passed");
+    }
+
+    /**
+     * Short and invalid ADD requests get ERROR, the shard, its statistics and search index stay unchanged and the connection stays usable
+     */
+    private static void checkInvalidAdd(File directory) throws IOException {
+        LocalShard shard = emptyShard(new File(directory, "invalid-add.xml"));
+        ServerSocket serverSocket = serve(shard);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            for (String request : new String[]{"ADD\tJohn Smith", "ADD\tJohn Smith\tTexas", "ADD\tJohn Smith\tTexas\t(212) 555 - 1234\textra", "SEARCH\t10", "PHONE"}) {
+                writer.write(request + "\n");
+                writer.flush();
+                check(reader.readLine().startsWith(ShardProtocol.ERROR + ShardProtocol.SEPARATOR), "malformed request gets ERROR: " + request);
+            }
+        }
+
+        try (RemoteShard remoteShard = new RemoteShard(serverSocket.getLocalPort())) {
+            for (Record record : Arrays.asList(record("john Smith", "Texas", "(212) 555 - 1234"),
+                    record("John Smith", "texas", "(212) 555 - 1234"),
+                    record("John Smith", "Texas", "212-555-1234"))) {
+                try {
+                    remoteShard.addRecord(record);
+                    throw new AssertionError("invalid record is added: " + record.getName() + ", " + record.getState() + ", " + record.getPhone());
+                }
+                catch (ShardProtocol.ErrorResponseException e) {
+                    check(e.getMessage().equals(RecordValidator.validate(record.getName(), record.getState(), record.getPhone())),
+                            "ERROR carries the validation message");
+                }
+            }
+            check(remoteShard.getRecordsCount() == 0, "shard is not changed by invalid requests");
+            check(remoteShard.getCountsByState().isEmpty(), "statistics are not changed by invalid requests");
+            check(remoteShard.searchByName("John Smith", 10).isEmpty(), "search index is not changed by invalid requests");
+
+            remoteShard.addRecord(record("John Smith", "Texas", "(212) 555 - 1234"));
+            check(remoteShard.getRecordsCount() == 1 && remoteShard.getCountsByState().get("Texas") == 1, "valid record is added over the same connection");
+        }
+        serverSocket.close();
+    }
+
+    /**
+     * ERROR line after some response lines fails the request, the lines before it are not returned and the connection stays usable
+     */
+    private static void checkErrorAfterPartialResponse() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("John Smith\tTexas\t(212) 555 - 1234\nERROR\tShard failed\nEND\n"));
+        try {
+            ShardProtocol.readResponse(reader);
+            throw new AssertionError("partial response with ERROR is accepted");
+        }
+        catch (ShardProtocol.ErrorResponseException e) {
+            check(e.getMessage().equals("Shard failed"), "message of the ERROR line");
+        }
+        check(ShardProtocol.readResponse(reader).isEmpty(), "the next response is read from the next line");
+
+        /*
+         * fake server answering the first request with a record and ERROR, the second one with a record and END
+         */
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread server = daemon(() -> {
+                try (Socket socket = serverSocket.accept();
+                     BufferedReader requests = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                     Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                    requests.readLine();
+                    writer.write("John Smith\tTexas\t(212) 555 - 1234\nERROR\tShard failed\n");
+                    writer.flush();
+                    requests.readLine();
+                    writer.write("Jane Smith\tOhio\t(305) 555 - 1234\nEND\n");
+                    writer.flush();
+                    requests.readLine(); // waiting till client closes the connection
+                }
+                catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            try (RemoteShard remoteShard = new RemoteShard(serverSocket.getLocalPort())) {
+                try {
+                    remoteShard.searchByName("John Smith", 10);
+                    throw new AssertionError("partial response with ERROR is accepted by RemoteShard");
+                }
+                catch (ShardProtocol.ErrorResponseException e) {
+                    check(e.getMessage().equals("Shard failed"), "RemoteShard reports the ERROR message");
+                }
+                List<Record> found = remoteShard.searchByName("Jane Smith", 10);
+                check(found.size() == 1 && found.get(0).getName().equals("Jane Smith"), "the connection is usable after ERROR, no stale lines are read");
+            }
+            join(server);
+        }
+    }
+
+    /**
+     * Read timeout fails the request and closes the connection, the next request reconnects
+     */
+    private static void checkReadTimeout() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            boolean[] isFirstConnectionClosed = new boolean[1];
+            Thread server = daemon(() -> {
+                try {
+                    try (Socket silent = serverSocket.accept()) {
+                        InputStream input = silent.getInputStream();
+                        while (input.read() != -1) {
+                            // reading the request and never answering, till client closes the connection
+                        }
+                        isFirstConnectionClosed[0] = true;
+                    }
+                    try (Socket answering = serverSocket.accept();
+                         BufferedReader requests = new BufferedReader(new InputStreamReader(answering.getInputStream(), StandardCharsets.UTF_8));
+                         OutputStream output = answering.getOutputStream()) {
+                        requests.readLine();
+                        output.write("7\nEND\n".getBytes(StandardCharsets.UTF_8));
+                        output.flush();
+                        requests.readLine();
+                    }
+                }
+                catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            try (RemoteShard remoteShard = new RemoteShard(serverSocket.getLocalPort(), 300, 300)) {
+                long start = System.nanoTime();
+                try {
+                    remoteShard.getRecordsCount();
+                    throw new AssertionError("silent server answered");
+                }
+                catch (SocketTimeoutException e) {
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    check(millis >= 250 && millis < 5_000, "request fails after the read timeout, took " + millis + " ms");
+                }
+                check(remoteShard.getRecordsCount() == 7, "the next request reconnects");
+            }
+            join(server);
+            check(isFirstConnectionClosed[0], "timed out connection is closed");
+        }
+    }
+
+    /**
+     * Search across local and remote shards ranks the results the same way as a single index over all records
+     */
+    private static void checkMergedRanking(File directory) throws IOException {
+        Random random = new Random(4);
+        List<Record> records = new ArrayList<>();
+        for (int number = 0; number < 300; number++) {
+            records.add(record(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    STATES[random.nextInt(STATES.length)], String.format("(%03d) 555 - %04d", 200 + random.nextInt(700), number)));
+        }
+        File file = new File(directory, "Phonebook.xml");
+        try {
+            PhonebookFile.save(file, records);
+        }
+        catch (Exception e) {
+            throw new IOException(e);
+        }
+        ShardedPhonebook.split(file, 3, ShardedPhonebook.Partitioning.BY_PHONE).close();
+
+        /*
+         * shard 0 is served by ShardServer, the others are local
+         */
+        List<File> shardFiles = ShardedPhonebook.shardFiles(file, 3);
+        LocalShard servedShard = new LocalShard(shardFiles.get(0));
+        servedShard.load();
+        ServerSocket serverSocket = serve(servedShard);
+        List<Shard> shards = new ArrayList<>();
+        RemoteShard remoteShard = new RemoteShard(serverSocket.getLocalPort());
+        shards.add(remoteShard);
+        for (File shardFile : shardFiles.subList(1, 3)) {
+            LocalShard shard = new LocalShard(shardFile);
+            shards.add(shard);
+        }
+        ShardedPhonebook phonebook = new ShardedPhonebook(shards, ShardedPhonebook.Partitioning.BY_PHONE);
+        phonebook.load();
+        check(phonebook.getRecordsCount() == records.size(), "all records are in the shards");
+
+        RecordList single = new RecordList();
+        single.setRecords(new ArrayList<>(records));
+        for (String query : QUERIES) {
+            List<String> expected = canonical(query, single.searchByName(query, records.size()));
+            List<String> merged = canonical(query, phonebook.searchByName(query, records.size()));
+            check(!expected.isEmpty(), "single index finds " + query);
+            check(merged.equals(expected), "merged ranking of " + query + " is " + merged + " instead of " + expected);
+
+            /*
+             * the best results must be the same also when each shard returns only its best few
+             */
+            List<Record> best = phonebook.searchByName(query, 3);
+            List<Record> expectedBest = single.searchByName(query, 3);
+            check(RecordSearchIndex.normalize(best.get(0).getName()).equals(RecordSearchIndex.normalize(expectedBest.get(0).getName())),
+                    "best merged result of " + query + " is " + best.get(0).getName() + " instead of " + expectedBest.get(0).getName());
+        }
+        phonebook.close();
+        serverSocket.close();
+    }
+
+    /**
+     * Records as "name, phone" ordered by relevance, equally relevant records by phone, so results of different indexes can be compared
+     */
+    private static List<String> canonical(String query, List<Record> found) {
+        List<Record> sorted = new ArrayList<>(found);
+        sorted.sort(Comparator.comparing(Record::getPhone));
+        RecordSearchIndex.sortByRelevance(query, sorted); // stable: phone order is kept for equally relevant records
+        List<String> descriptions = new ArrayList<>();
+        for (Record record : sorted) {
+            descriptions.add(record.getName() + ", " + record.getPhone());
+        }
+        return descriptions;
+    }
+
+    private static LocalShard emptyShard(File file) throws IOException {
+        try {
+            PhonebookFile.save(file, new ArrayList<>());
+        }
+        catch (Exception e) {
+            throw new IOException(e);
+        }
+        LocalShard shard = new LocalShard(file);
+        shard.load();
+        return shard;
+    }
+
+    /**
+     * Starting ShardServer of the shard on ephemeral loopback port in a daemon thread
+     */
+    private static ServerSocket serve(LocalShard shard) throws IOException {
+        ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        daemon(() -> {
+            try {
+                new ShardServer(shard).serve(serverSocket);
+            }
+            catch (IOException e) {
+                // server socket is closed by the check
+            }
+        });
+        return serverSocket;
+    }
+
+    private static Thread daemon(Runnable runnable) {
+        Thread thread = new Thread(runnable, "shard-check");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join(5_000);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        check(!thread.isAlive(), "fake server finished");
+    }
+
+    private static Record record(String name, String state, String phone) {
+        Record record = new Record();
+        record.setName(name);
+        record.setState(state);
+        record.setPhone(phone);
+        return record;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            throw new AssertionError(description);
+        }
+    }
+}